@@ -1,10 +1,16 @@
 package com.atm.management;
 
+import controllers.ViewLoader;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import server.AtmServer;
+import server.RemoteAtmBackend;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 import services.SettingsService;
 
 /**
@@ -12,15 +18,11 @@ import services.SettingsService;
  * Initializes JavaFX application and loads the splash screen.
  */
 public class Main extends Application {
-    private static SettingsService settingsService;
-    
     @Override
     public void start(Stage primaryStage) {
         try {
-            settingsService = new SettingsService();
-            
             // Load splash screen
-            FXMLLoader loader = new FXMLLoader(Main.class.getResource("/views/Splash.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Splash.fxml");
             Parent root = loader.load();
             
             Scene scene = new Scene(root, 800, 600);
@@ -33,19 +35,48 @@ public class Main extends Application {
             primaryStage.setScene(scene);
             primaryStage.setResizable(false);
             primaryStage.show();
+            
+            // Return to the login screen when a session times out, whatever screen is showing
+            AsyncAtmService.getInstance().setSessionExpiredListener(() -> Platform.runLater(() -> {
+                try {
+                    primaryStage.getScene().setRoot(ViewLoader.loader("/views/Login.fxml").load());
+                } catch (Exception e) {
+                    System.err.println("Error loading login screen: " + e.getMessage());
+                }
+            }));
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
     
+    /**
+     * Starts the application.
+     * With {@code --server [port]} runs the headless transaction server instead of the UI;
+     * with {@code --connect host:port} runs the UI as a terminal of that server.
+     *
+     * @param args Command line arguments
+     */
     public static void main(String[] args) {
+        try {
+            if (args.length > 0 && args[0].equals("--server")) {
+                int port = args.length > 1 ? Integer.parseInt(args[1]) : AtmServer.DEFAULT_PORT;
+                new AtmServer(port).serve();
+                return;
+            }
+            if (args.length > 1 && args[0].equals("--connect")) {
+                int separator = args[1].lastIndexOf(':');
+                String host = separator > 0 ? args[1].substring(0, separator) : args[1];
+                int port = separator > 0 ? Integer.parseInt(args[1].substring(separator + 1)) : AtmServer.DEFAULT_PORT;
+                AsyncAtmService.useBackend(new RemoteAtmBackend(host, port));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing port: " + e.getMessage());
+            return;
+        }
         launch(args);
     }
     
     public static SettingsService getSettingsService() {
-        if (settingsService == null) {
-            settingsService = new SettingsService();
-        }
-        return settingsService;
+        return ServiceRegistry.getInstance().getSettingsService();
     }
 }
@@ -10,7 +10,8 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
 import models.Account;
-import services.AccountService;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 
 /**
  * Controller for the create account screen.
@@ -34,11 +35,19 @@ public class CreateAccountController {
     @FXML
     private Label errorLabel;
     
-    private AccountService accountService;
+    private final AsyncAtmService atmService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public CreateAccountController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
     
     @FXML
     public void initialize() {
-        accountService = new AccountService();
         messageLabel.setText("");
         errorLabel.setText("");
         messageLabel.setVisible(false);
@@ -64,6 +73,12 @@ public class CreateAccountController {
             return;
         }
         
+        if (!Account.fitsName(name)) {
+            errorLabel.setText("Name is too long");
+            errorLabel.setVisible(true);
+            return;
+        }
+        
         if (pin.length() < 4) {
             errorLabel.setText("PIN must be at least 4 digits");
             errorLabel.setVisible(true);
@@ -76,27 +91,37 @@ public class CreateAccountController {
             return;
         }
         
-        Account account = accountService.createAccount(name, pin);
-        if (account != null) {
-            String accountNumber = account.getAccountNumber();
-            messageLabel.setText("✅ Account created successfully!\n\nYour Account Number: " + accountNumber + "\n\nPlease save this number securely!");
-            messageLabel.setVisible(true);
-            errorLabel.setVisible(false);
-            
-            // Clear fields
-            nameField.clear();
-            pinField.clear();
-            confirmPinField.clear();
-        } else {
-            errorLabel.setText("Failed to create account. Please try again.");
-            errorLabel.setVisible(true);
-        }
+        FxAsync.setPending(true, createButton);
+        FxAsync.whenDone(atmService.createAccount(name, pin), account -> {
+            FxAsync.setPending(false, createButton);
+            if (account != null) {
+                String accountNumber = account.getAccountNumber();
+                messageLabel.setText("✅ Account created successfully!\n\nYour Account Number: " + accountNumber + "\n\nPlease save this number securely!");
+                messageLabel.setVisible(true);
+                errorLabel.setVisible(false);
+                
+                // Clear fields
+                nameField.clear();
+                pinField.clear();
+                confirmPinField.clear();
+            } else {
+                showCreateFailed();
+            }
+        }, error -> {
+            FxAsync.setPending(false, createButton);
+            showCreateFailed();
+        });
+    }
+    
+    private void showCreateFailed() {
+        errorLabel.setText("Failed to create account. Please try again.");
+        errorLabel.setVisible(true);
     }
     
     @FXML
     private void handleBack() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Login.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Login.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
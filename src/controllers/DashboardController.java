@@ -9,11 +9,11 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.AnchorPane;
-import services.AuthService;
-import services.SettingsService;
+import models.Account;
+import models.Money;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 import javafx.stage.Stage;
-import java.util.Timer;
-import java.util.TimerTask;
 
 /**
  * Controller for the dashboard screen.
@@ -43,48 +43,36 @@ public class DashboardController {
     @FXML
     private Button exitButton;
     
-    private AuthService authService;
-    private SettingsService settingsService;
-    private Timer inactivityTimer;
-    private static final long INACTIVITY_TIMEOUT = 5 * 60 * 1000; // 5 minutes
+    private final AsyncAtmService atmService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public DashboardController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
     
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
-        settingsService = new SettingsService();
-        
-        if (!authService.isLoggedIn()) {
+        if (!atmService.isLoggedIn()) {
             loadLogin();
             return;
         }
         
-        updateDisplay();
-        startInactivityTimer();
+        updateDisplay(); // Auto logout is kept per session by the service, not per screen
     }
     
     private void updateDisplay() {
-        authService.refreshCurrentAccount();
-        if (authService.getCurrentAccount() != null) {
-            welcomeLabel.setText("Welcome, " + authService.getCurrentAccount().getName() + "!");
-            balanceLabel.setText("Balance: $" + String.format("%.2f", authService.getCurrentAccount().getBalance()));
-        }
+        FxAsync.whenDone(atmService.currentAccount(), this::showAccount, error -> { });
     }
     
-    private void startInactivityTimer() {
-        if (inactivityTimer != null) {
-            inactivityTimer.cancel();
+    private void showAccount(Account account) {
+        if (account != null) {
+            welcomeLabel.setText("Welcome, " + account.getName() + "!");
+            balanceLabel.setText("Balance: $" + Money.format(account.getBalance()));
         }
-        
-        inactivityTimer = new Timer();
-        inactivityTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                javafx.application.Platform.runLater(() -> {
-                    authService.logout();
-                    loadLogin();
-                });
-            }
-        }, INACTIVITY_TIMEOUT);
     }
     
     @FXML
@@ -104,17 +92,19 @@ public class DashboardController {
     
     @FXML
     private void handleCheckBalance() {
-        startInactivityTimer(); // Reset timer on activity
-        updateDisplay(); // Refresh balance display
-        authService.refreshCurrentAccount();
-        if (authService.getCurrentAccount() != null) {
-            double balance = authService.getCurrentAccount().getBalance();
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Account Balance");
-            alert.setHeaderText("Your Account Balance");
-            alert.setContentText("Balance: $" + String.format("%.2f", balance));
-            alert.showAndWait();
-        }
+        FxAsync.setPending(true, checkBalanceButton);
+        FxAsync.whenDone(atmService.currentAccount(), account -> {
+            FxAsync.setPending(false, checkBalanceButton);
+            showAccount(account); // Refresh balance display
+            if (account != null) {
+                long balance = account.getBalance();
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("Account Balance");
+                alert.setHeaderText("Your Account Balance");
+                alert.setContentText("Balance: $" + Money.format(balance));
+                alert.showAndWait();
+            }
+        }, error -> FxAsync.setPending(false, checkBalanceButton));
     }
     
     @FXML
@@ -134,17 +124,13 @@ public class DashboardController {
     
     @FXML
     private void handleExit() {
-        if (inactivityTimer != null) {
-            inactivityTimer.cancel();
-        }
-        authService.logout();
+        atmService.logout();
         Platform.exit();
     }
     
     private void loadScreen(String fxmlPath) {
-        startInactivityTimer(); // Reset timer on activity
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
+            FXMLLoader loader = ViewLoader.loader(fxmlPath);
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
@@ -155,7 +141,7 @@ public class DashboardController {
     
     private void loadLogin() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Login.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Login.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             if (scene == null) {
@@ -8,10 +8,10 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
-import models.Transaction.TransactionType;
-import services.AccountService;
-import services.AuthService;
-import services.TransactionService;
+import models.Money;
+import services.AsyncAtmService;
+import services.LedgerSequencer;
+import services.ServiceRegistry;
 
 /**
  * Controller for the deposit screen.
@@ -33,17 +33,20 @@ public class DepositController {
     @FXML
     private Label errorLabel;
     
-    private AuthService authService;
-    private AccountService accountService;
-    private TransactionService transactionService;
+    private final AsyncAtmService atmService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public DepositController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
     
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
-        accountService = new AccountService();
-        transactionService = new TransactionService();
-        
-        if (!authService.isLoggedIn()) {
+        if (!atmService.isLoggedIn()) {
             loadDashboard();
             return;
         }
@@ -56,11 +59,11 @@ public class DepositController {
     }
     
     private void updateBalance() {
-        authService.refreshCurrentAccount();
-        if (authService.getCurrentAccount() != null) {
-            currentBalanceLabel.setText("Current Balance: $" + 
-                String.format("%.2f", authService.getCurrentAccount().getBalance()));
-        }
+        FxAsync.whenDone(atmService.currentAccount(), account -> {
+            if (account != null) {
+                currentBalanceLabel.setText("Current Balance: $" + Money.format(account.getBalance()));
+            }
+        }, error -> { });
     }
     
     @FXML
@@ -72,7 +75,7 @@ public class DepositController {
         errorLabel.setText("");
         
         try {
-            double amount = Double.parseDouble(amountField.getText().trim());
+            long amount = Money.parse(amountField.getText());
             
             if (amount <= 0) {
                 errorLabel.setText("Amount must be greater than zero");
@@ -80,26 +83,46 @@ public class DepositController {
                 return;
             }
             
-            String accountNumber = authService.getCurrentAccount().getAccountNumber();
-            
-            if (accountService.deposit(accountNumber, amount)) {
-                transactionService.createTransaction(accountNumber, TransactionType.DEPOSIT, 
-                    amount, "Deposit");
-                messageLabel.setText("✅ Deposit successful! Amount: $" + String.format("%.2f", amount));
-                messageLabel.setVisible(true);
-                errorLabel.setVisible(false);
-                amountField.clear();
-                updateBalance();
-            } else {
-                errorLabel.setText("Deposit failed. Please try again.");
-                errorLabel.setVisible(true);
-            }
+            messageLabel.setText("Processing deposit...");
+            messageLabel.setVisible(true);
+            FxAsync.setPending(true, depositButton, amountField);
+            FxAsync.whenDone(atmService.deposit(amount), sequence -> {
+                FxAsync.setPending(false, depositButton, amountField);
+                if (sequence == LedgerSequencer.NOT_DURABLE) {
+                    showNotSaved(amount);
+                } else if (sequence != LedgerSequencer.REJECTED) {
+                    messageLabel.setText("✅ Deposit successful! Amount: $" + Money.format(amount));
+                    messageLabel.setVisible(true);
+                    errorLabel.setVisible(false);
+                    amountField.clear();
+                    updateBalance();
+                } else {
+                    showDepositFailed();
+                }
+            }, error -> {
+                FxAsync.setPending(false, depositButton, amountField);
+                showDepositFailed();
+            });
         } catch (NumberFormatException e) {
             errorLabel.setText("Please enter a valid amount");
             errorLabel.setVisible(true);
         }
     }
     
+    private void showNotSaved(long amount) {
+        errorLabel.setVisible(false);
+        messageLabel.setText("Deposit of $" + Money.format(amount) + " was applied but could not be saved yet.");
+        messageLabel.setVisible(true);
+        amountField.clear(); // Applied, so it must not be submitted again
+        updateBalance();
+    }
+    
+    private void showDepositFailed() {
+        messageLabel.setVisible(false);
+        errorLabel.setText("Deposit failed. Please try again.");
+        errorLabel.setVisible(true);
+    }
+    
     @FXML
     private void handleBack() {
         loadDashboard();
@@ -107,7 +130,7 @@ public class DepositController {
     
     private void loadDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Dashboard.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Dashboard.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
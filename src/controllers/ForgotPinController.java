@@ -9,8 +9,8 @@ import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
-import models.Account;
-import services.AccountService;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 
 /**
  * Controller for the forgot PIN screen.
@@ -36,11 +36,19 @@ public class ForgotPinController {
     @FXML
     private Label errorLabel;
     
-    private AccountService accountService;
+    private final AsyncAtmService atmService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public ForgotPinController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
     
     @FXML
     public void initialize() {
-        accountService = new AccountService();
         messageLabel.setText("");
         errorLabel.setText("");
         messageLabel.setVisible(false);
@@ -66,45 +74,46 @@ public class ForgotPinController {
             return;
         }
         
-        Account account = accountService.getAccountByNumber(accountNumber);
-        if (account == null || !account.getName().equalsIgnoreCase(name)) {
-            errorLabel.setText("Account not found or name does not match");
-            errorLabel.setVisible(true);
-            return;
-        }
-        
         if (newPin.length() < 4) {
-            errorLabel.setText("PIN must be at least 4 digits");
-            errorLabel.setVisible(true);
+            showError("PIN must be at least 4 digits");
             return;
         }
         
         if (!newPin.equals(confirmPin)) {
-            errorLabel.setText("PINs do not match");
-            errorLabel.setVisible(true);
+            showError("PINs do not match");
             return;
         }
         
-        if (accountService.updatePin(accountNumber, newPin)) {
-            messageLabel.setText("✅ PIN reset successfully!");
-            messageLabel.setVisible(true);
-            errorLabel.setVisible(false);
-            
-            // Clear fields
-            accountNumberField.clear();
-            nameField.clear();
-            newPinField.clear();
-            confirmPinField.clear();
-        } else {
-            errorLabel.setText("Failed to reset PIN. Please try again.");
-            errorLabel.setVisible(true);
-        }
+        // The backend checks the holder's name itself; accounts cannot be looked up before login
+        FxAsync.setPending(true, resetButton);
+        FxAsync.whenDone(atmService.resetPin(accountNumber, name, newPin), updated -> {
+            if (updated) {
+                FxAsync.setPending(false, resetButton);
+                messageLabel.setText("✅ PIN reset successfully!");
+                messageLabel.setVisible(true);
+                errorLabel.setVisible(false);
+                
+                // Clear fields
+                accountNumberField.clear();
+                nameField.clear();
+                newPinField.clear();
+                confirmPinField.clear();
+            } else {
+                showError("Account not found or name does not match");
+            }
+        }, error -> showError("Failed to reset PIN. Please try again."));
+    }
+    
+    private void showError(String message) {
+        FxAsync.setPending(false, resetButton);
+        errorLabel.setText(message);
+        errorLabel.setVisible(true);
     }
     
     @FXML
     private void handleBack() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Login.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Login.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
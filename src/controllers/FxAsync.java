@@ -0,0 +1,58 @@
+package controllers;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Helpers for running service calls off the JavaFX Application Thread.
+ * Results are handed back to the FX thread with Platform.runLater, and the
+ * controls of a screen can be disabled while a call is pending.
+ */
+public final class FxAsync {
+
+    /**
+     * Private constructor; this class only has static helpers.
+     */
+    private FxAsync() {
+    }
+
+    /**
+     * Runs a callback on the FX thread once the future completes.
+     *
+     * @param future    The pending service call
+     * @param onSuccess Receives the result on the FX thread
+     * @param onFailure Receives the cause on the FX thread if the call failed
+     * @param <T>       The result type
+     */
+    public static <T> void whenDone(CompletableFuture<T> future, Consumer<T> onSuccess,
+                                    Consumer<Throwable> onFailure) {
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                System.err.println("Error in background task: " + cause.getMessage());
+                onFailure.accept(cause);
+            }
+        }));
+    }
+
+    /**
+     * Disables or re-enables controls while a call is pending.
+     *
+     * @param pending Whether a call is in flight
+     * @param nodes   The controls to toggle
+     */
+    public static void setPending(boolean pending, Node... nodes) {
+        for (Node node : nodes) {
+            if (node != null) {
+                node.setDisable(pending);
+            }
+        }
+    }
+}
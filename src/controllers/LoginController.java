@@ -11,7 +11,8 @@ import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.AnchorPane;
-import services.AuthService;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 
 /**
  * Controller for the login screen.
@@ -33,11 +34,19 @@ public class LoginController {
     @FXML
     private Label errorLabel;
     
-    private AuthService authService;
+    private final AsyncAtmService atmService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public LoginController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
     
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
         errorLabel.setText("");
         errorLabel.setVisible(false);
         
@@ -82,20 +91,31 @@ public class LoginController {
             return;
         }
         
-        if (authService.login(accountNumber, pin)) {
-            errorLabel.setVisible(false);
-            loadDashboard();
-        } else {
-            errorLabel.setText("Invalid account number or PIN");
-            errorLabel.setVisible(true);
-            pinField.clear();
-        }
+        FxAsync.setPending(true, loginButton, accountNumberField, pinField);
+        FxAsync.whenDone(atmService.login(accountNumber, pin), loggedIn -> {
+            FxAsync.setPending(false, loginButton, accountNumberField, pinField);
+            if (loggedIn) {
+                errorLabel.setVisible(false);
+                loadDashboard();
+            } else {
+                showLoginFailed();
+            }
+        }, error -> {
+            FxAsync.setPending(false, loginButton, accountNumberField, pinField);
+            showLoginFailed();
+        });
+    }
+    
+    private void showLoginFailed() {
+        errorLabel.setText("Invalid account number or PIN");
+        errorLabel.setVisible(true);
+        pinField.clear();
     }
     
     @FXML
     private void handleCreateAccount() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/CreateAccount.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/CreateAccount.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
@@ -107,7 +127,7 @@ public class LoginController {
     @FXML
     private void handleForgotPin() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/ForgotPin.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/ForgotPin.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
@@ -118,7 +138,7 @@ public class LoginController {
     
     private void loadDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Dashboard.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Dashboard.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
@@ -5,16 +5,17 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.AnchorPane;
+import models.Money;
 import models.Transaction;
-import services.AuthService;
-import services.TransactionService;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * Controller for the mini statement screen.
@@ -36,15 +37,20 @@ public class MiniStatementController {
     @FXML
     private Button backButton;
     
-    private AuthService authService;
-    private TransactionService transactionService;
+    private final AsyncAtmService atmService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public MiniStatementController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
     
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
-        transactionService = new TransactionService();
-        
-        if (!authService.isLoggedIn()) {
+        if (!atmService.isLoggedIn()) {
             loadDashboard();
             return;
         }
@@ -76,7 +82,7 @@ public class MiniStatementController {
             if (t != null) {
                 String sign = t.getType() == Transaction.TransactionType.DEPOSIT ? "+" : "-";
                 return new javafx.beans.property.SimpleStringProperty(
-                    sign + "$" + String.format("%.2f", t.getAmount()));
+                    sign + "$" + Money.format(t.getAmount()));
             }
             return new javafx.beans.property.SimpleStringProperty("");
         });
@@ -95,13 +101,15 @@ public class MiniStatementController {
     }
     
     private void loadTransactions() {
-        if (authService.getCurrentAccount() != null) {
-            String accountNumber = authService.getCurrentAccount().getAccountNumber();
-            List<Transaction> transactions = transactionService.getMiniStatement(accountNumber, 10);
+        if (atmService.isLoggedIn()) {
             transactionTable.getItems().clear();
-            if (transactions != null && !transactions.isEmpty()) {
-                transactionTable.getItems().setAll(transactions);
-            }
+            transactionTable.setPlaceholder(new Label("Loading transactions..."));
+            FxAsync.whenDone(atmService.miniStatement(10), transactions -> {
+                transactionTable.setPlaceholder(new Label("No transactions found"));
+                if (transactions != null && !transactions.isEmpty()) {
+                    transactionTable.getItems().setAll(transactions);
+                }
+            }, error -> transactionTable.setPlaceholder(new Label("Could not load transactions")));
         }
     }
     
@@ -112,7 +120,7 @@ public class MiniStatementController {
     
     private void loadDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Dashboard.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Dashboard.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
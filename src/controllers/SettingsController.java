@@ -9,10 +9,9 @@ import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.layout.AnchorPane;
-import services.AccountService;
-import services.AuthService;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 import services.SettingsService;
-import utils.SecurityUtils;
 
 /**
  * Controller for the settings screen.
@@ -38,17 +37,22 @@ public class SettingsController {
     @FXML
     private Label errorLabel;
     
-    private AuthService authService;
-    private AccountService accountService;
-    private SettingsService settingsService;
+    private final AsyncAtmService atmService;
+    private final SettingsService settingsService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public SettingsController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+        settingsService = services.getSettingsService();
+    }
     
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
-        accountService = new AccountService();
-        settingsService = new SettingsService();
-        
-        if (!authService.isLoggedIn()) {
+        if (!atmService.isLoggedIn()) {
             loadDashboard();
             return;
         }
@@ -79,38 +83,44 @@ public class SettingsController {
             return;
         }
         
-        // Verify current PIN
-        if (!SecurityUtils.verifyPin(currentPin, authService.getCurrentAccount().getHashedPin())) {
-            errorLabel.setText("Current PIN is incorrect");
-            errorLabel.setVisible(true);
-            return;
-        }
-        
-        if (newPin.length() < 4) {
-            errorLabel.setText("PIN must be at least 4 digits");
-            errorLabel.setVisible(true);
-            return;
-        }
-        
-        if (!newPin.equals(confirmPin)) {
-            errorLabel.setText("New PINs do not match");
-            errorLabel.setVisible(true);
-            return;
-        }
-        
-        String accountNumber = authService.getCurrentAccount().getAccountNumber();
-        if (accountService.updatePin(accountNumber, newPin)) {
-            authService.refreshCurrentAccount();
-            messageLabel.setText("✅ PIN changed successfully!");
-            messageLabel.setVisible(true);
-            errorLabel.setVisible(false);
-            currentPinField.clear();
-            newPinField.clear();
-            confirmPinField.clear();
-        } else {
-            errorLabel.setText("Failed to change PIN. Please try again.");
-            errorLabel.setVisible(true);
-        }
+        FxAsync.setPending(true, changePinButton);
+        FxAsync.whenDone(atmService.verifyPin(currentPin), verified -> {
+            // Verify current PIN
+            if (!verified) {
+                showError("Current PIN is incorrect");
+                return;
+            }
+            
+            if (newPin.length() < 4) {
+                showError("PIN must be at least 4 digits");
+                return;
+            }
+            
+            if (!newPin.equals(confirmPin)) {
+                showError("New PINs do not match");
+                return;
+            }
+            
+            FxAsync.whenDone(atmService.changePin(newPin), updated -> {
+                if (updated) {
+                    FxAsync.setPending(false, changePinButton);
+                    messageLabel.setText("✅ PIN changed successfully!");
+                    messageLabel.setVisible(true);
+                    errorLabel.setVisible(false);
+                    currentPinField.clear();
+                    newPinField.clear();
+                    confirmPinField.clear();
+                } else {
+                    showError("Failed to change PIN. Please try again.");
+                }
+            }, error -> showError("Failed to change PIN. Please try again."));
+        }, error -> showError("Failed to change PIN. Please try again."));
+    }
+    
+    private void showError(String message) {
+        FxAsync.setPending(false, changePinButton);
+        errorLabel.setText(message);
+        errorLabel.setVisible(true);
     }
     
     @FXML
@@ -138,7 +148,7 @@ public class SettingsController {
     
     private void loadDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Dashboard.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Dashboard.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
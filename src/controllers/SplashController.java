@@ -37,7 +37,7 @@ public class SplashController {
     
     private void loadLogin() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Login.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Login.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
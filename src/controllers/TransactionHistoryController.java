@@ -2,22 +2,27 @@ package controllers;
 
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.layout.AnchorPane;
+import models.Money;
 import models.Transaction;
-import services.AuthService;
-import services.TransactionService;
+import services.AsyncAtmService;
+import services.ServiceRegistry;
 
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * Controller for the transaction history screen.
- * Displays all transactions for the logged-in account.
+ * Displays the logged-in account's transactions, newest first, one page at a time;
+ * older pages are fetched as the user scrolls towards the end of the table.
  */
 public class TransactionHistoryController {
     @FXML
@@ -37,20 +42,32 @@ public class TransactionHistoryController {
     @FXML
     private Button backButton;
 
-    private AuthService authService;
-    private TransactionService transactionService;
+    private static final int PAGE_SIZE = 50;
+    private static final double LOAD_MORE_THRESHOLD = 0.9;
+
+    private final AsyncAtmService atmService;
+    private String nextCursor;
+    private boolean hasMorePages;
+    private boolean loadingPage;
+
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public TransactionHistoryController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
 
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
-        transactionService = new TransactionService();
-
-        if (!authService.isLoggedIn()) {
+        if (!atmService.isLoggedIn()) {
             loadDashboard();
             return;
         }
 
         setupTable();
+        transactionTable.skinProperty().addListener((obs, oldSkin, newSkin) -> watchScrolling());
         loadTransactions();
     }
 
@@ -75,10 +92,10 @@ public class TransactionHistoryController {
         amountColumn.setCellValueFactory(cellData -> {
             Transaction t = cellData.getValue();
             if (t != null) {
-                double amount = t.getAmount();
+                long amount = t.getAmount();
                 String sign = amount >= 0 ? "+" : "";
                 return new javafx.beans.property.SimpleStringProperty(
-                        sign + "$" + String.format("%.2f", amount));
+                        sign + "$" + Money.format(amount));
             }
             return new javafx.beans.property.SimpleStringProperty("");
         });
@@ -103,12 +120,47 @@ public class TransactionHistoryController {
     }
 
     private void loadTransactions() {
-        if (authService.getCurrentAccount() != null) {
-            String accountNumber = authService.getCurrentAccount().getAccountNumber();
-            List<Transaction> transactions = transactionService.getTransactionsByAccount(accountNumber);
+        if (atmService.isLoggedIn()) {
             transactionTable.getItems().clear();
-            if (transactions != null && !transactions.isEmpty()) {
-                transactionTable.getItems().setAll(transactions);
+            transactionTable.setPlaceholder(new Label("Loading transactions..."));
+            nextCursor = null;
+            hasMorePages = true;
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Appends the next page of older transactions, unless one is already loading.
+     */
+    private void loadNextPage() {
+        if (loadingPage || !hasMorePages) {
+            return;
+        }
+        loadingPage = true;
+        FxAsync.whenDone(atmService.transactionPage(nextCursor, PAGE_SIZE), page -> {
+            loadingPage = false;
+            transactionTable.setPlaceholder(new Label("No transactions found"));
+            transactionTable.getItems().addAll(page.getTransactions());
+            nextCursor = page.getNextCursor();
+            hasMorePages = page.hasMore();
+        }, error -> {
+            loadingPage = false;
+            transactionTable.setPlaceholder(new Label("Could not load transactions"));
+        });
+    }
+
+    /**
+     * Loads the next page when the vertical scroll bar nears the end of the table.
+     * The scroll bar only exists once the table's skin has been created.
+     */
+    private void watchScrolling() {
+        for (Node node : transactionTable.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                scrollBar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * LOAD_MORE_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
             }
         }
     }
@@ -120,7 +172,7 @@ public class TransactionHistoryController {
 
     private void loadDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Dashboard.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Dashboard.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
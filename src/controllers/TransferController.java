@@ -9,9 +9,12 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
 import models.Account;
-import services.AccountService;
-import services.AuthService;
-import services.TransactionService;
+import models.Money;
+import services.AsyncAtmService;
+import services.LedgerSequencer;
+import services.ServiceRegistry;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for the transfer screen.
@@ -35,17 +38,20 @@ public class TransferController {
     @FXML
     private Label errorLabel;
 
-    private AuthService authService;
-    private AccountService accountService;
-    private TransactionService transactionService;
+    private final AsyncAtmService atmService;
+
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public TransferController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
 
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
-        accountService = new AccountService();
-        transactionService = new TransactionService();
-
-        if (!authService.isLoggedIn()) {
+        if (!atmService.isLoggedIn()) {
             loadDashboard();
             return;
         }
@@ -58,12 +64,12 @@ public class TransferController {
     }
 
     private void updateBalance() {
-        // Get fresh account data from file
-        Account currentAccount = authService.getCurrentAccount();
-        if (currentAccount != null) {
-            double balance = currentAccount.getBalance();
-            currentBalanceLabel.setText("Current Balance: $" + String.format("%.2f", balance));
-        }
+        FxAsync.whenDone(atmService.currentAccount(), currentAccount -> {
+            if (currentAccount != null) {
+                long balance = currentAccount.getBalance();
+                currentBalanceLabel.setText("Current Balance: $" + Money.format(balance));
+            }
+        }, error -> { });
     }
 
     @FXML
@@ -76,7 +82,7 @@ public class TransferController {
 
         try {
             String targetAccountNumber = targetAccountField.getText().trim();
-            double amount = Double.parseDouble(amountField.getText().trim());
+            long amount = Money.parse(amountField.getText());
 
             if (targetAccountNumber.isEmpty()) {
                 errorLabel.setText("Please enter target account number");
@@ -90,53 +96,75 @@ public class TransferController {
                 return;
             }
 
-            Account currentAccount = authService.getCurrentAccount();
-            String fromAccountNumber = currentAccount.getAccountNumber();
+            String fromAccountNumber = atmService.getCurrentAccountNumber();
 
-            if (fromAccountNumber.equals(targetAccountNumber)) {
+            if (targetAccountNumber.equals(fromAccountNumber)) {
                 errorLabel.setText("Cannot transfer to the same account");
                 errorLabel.setVisible(true);
                 return;
             }
 
-            Account targetAccount = accountService.getAccountByNumber(targetAccountNumber);
-            if (targetAccount == null) {
-                errorLabel.setText("Target account not found");
-                errorLabel.setVisible(true);
-                return;
-            }
-
-            double currentBalance = currentAccount.getBalance();
-            if (amount > currentBalance) {
-                errorLabel.setText("Insufficient balance");
-                errorLabel.setVisible(true);
-                return;
-            }
-
-            // Perform the transfer
-            if (accountService.transfer(fromAccountNumber, targetAccountNumber, amount)) {
-                // Create transaction record
-                transactionService.createTransferTransaction(fromAccountNumber, targetAccountNumber, amount);
-
-                messageLabel.setText("✅ Transfer successful! Amount: $" + String.format("%.2f", amount) +
-                        " to " + targetAccountNumber);
-                messageLabel.setVisible(true);
-                errorLabel.setVisible(false);
-                targetAccountField.clear();
-                amountField.clear();
-
-                // Refresh balance immediately by reading fresh data from file
-                updateBalance();
-            } else {
-                errorLabel.setText("Transfer failed. Please try again.");
-                errorLabel.setVisible(true);
-            }
+            messageLabel.setText("Processing transfer...");
+            messageLabel.setVisible(true);
+            setPending(true);
+            // Both lookups run in parallel off the FX thread
+            CompletableFuture<Account> current = atmService.currentAccount();
+            CompletableFuture<String> targetHolder = atmService.findHolderName(targetAccountNumber);
+            FxAsync.whenDone(CompletableFuture.allOf(current, targetHolder), ignored -> {
+                String holderName = targetHolder.join();
+                Account currentAccount = current.join();
+                if (holderName == null) {
+                    showError("Target account not found");
+                    return;
+                }
+                if (currentAccount == null || amount > currentAccount.getBalance()) {
+                    showError("Insufficient balance");
+                    return;
+                }
+
+                // Perform the transfer; the ledger writes both transaction records
+                FxAsync.whenDone(atmService.transfer(targetAccountNumber, amount), sequence -> {
+                    setPending(false);
+                    if (sequence == LedgerSequencer.NOT_DURABLE) {
+                        errorLabel.setVisible(false);
+                        messageLabel.setText("Transfer of $" + Money.format(amount) + " to " + targetAccountNumber
+                                + " was applied but could not be saved yet.");
+                        messageLabel.setVisible(true);
+                        targetAccountField.clear();
+                        amountField.clear(); // Applied, so it must not be submitted again
+                        updateBalance();
+                    } else if (sequence != LedgerSequencer.REJECTED) {
+                        messageLabel.setText("✅ Transfer successful! Amount: $" + Money.format(amount) +
+                                " to " + targetAccountNumber + " (" + holderName + ")");
+                        messageLabel.setVisible(true);
+                        errorLabel.setVisible(false);
+                        targetAccountField.clear();
+                        amountField.clear();
+
+                        // Refresh balance with the committed state
+                        updateBalance();
+                    } else {
+                        showError("Transfer failed. Please try again.");
+                    }
+                }, error -> showError("Transfer failed. Please try again."));
+            }, error -> showError("Transfer failed. Please try again."));
         } catch (NumberFormatException e) {
             errorLabel.setText("Please enter a valid amount");
             errorLabel.setVisible(true);
         }
     }
 
+    private void setPending(boolean pending) {
+        FxAsync.setPending(pending, transferButton, targetAccountField, amountField);
+    }
+
+    private void showError(String message) {
+        setPending(false);
+        messageLabel.setVisible(false);
+        errorLabel.setText(message);
+        errorLabel.setVisible(true);
+    }
+
     @FXML
     private void handleBack() {
         loadDashboard();
@@ -144,7 +172,7 @@ public class TransferController {
 
     private void loadDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Dashboard.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Dashboard.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
@@ -0,0 +1,52 @@
+package controllers;
+
+import javafx.fxml.FXMLLoader;
+import services.ServiceRegistry;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates FXML loaders whose controllers get their services from the shared
+ * {@link ServiceRegistry}. A controller with a constructor taking the registry is
+ * built with it; any other controller is built with its no-argument constructor.
+ */
+public final class ViewLoader {
+
+    /**
+     * Private constructor; this class only has static helpers.
+     */
+    private ViewLoader() {
+    }
+
+    /**
+     * Creates a loader for a view.
+     *
+     * @param fxmlPath The classpath location of the FXML file, e.g. "/views/Login.fxml"
+     * @return The loader, ready to load
+     */
+    public static FXMLLoader loader(String fxmlPath) {
+        FXMLLoader loader = new FXMLLoader(ViewLoader.class.getResource(fxmlPath));
+        loader.setControllerFactory(ViewLoader::createController);
+        return loader;
+    }
+
+    /**
+     * Controller factory that injects the service registry.
+     *
+     * @param type The controller class named in the FXML file
+     * @return The new controller
+     */
+    static Object createController(Class<?> type) {
+        try {
+            for (Constructor<?> constructor : type.getConstructors()) {
+                Class<?>[] parameters = constructor.getParameterTypes();
+                if (parameters.length == 1 && parameters[0] == ServiceRegistry.class) {
+                    return constructor.newInstance(ServiceRegistry.getInstance());
+                }
+            }
+            return type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create controller " + type.getName(), e);
+        }
+    }
+}
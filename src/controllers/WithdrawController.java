@@ -8,10 +8,10 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
-import models.Transaction.TransactionType;
-import services.AccountService;
-import services.AuthService;
-import services.TransactionService;
+import models.Money;
+import services.AsyncAtmService;
+import services.LedgerSequencer;
+import services.ServiceRegistry;
 
 /**
  * Controller for the withdraw screen.
@@ -33,17 +33,20 @@ public class WithdrawController {
     @FXML
     private Label errorLabel;
     
-    private AuthService authService;
-    private AccountService accountService;
-    private TransactionService transactionService;
+    private final AsyncAtmService atmService;
+    
+    /**
+     * Creates the controller with its services.
+     *
+     * @param services The shared service registry
+     */
+    public WithdrawController(ServiceRegistry services) {
+        atmService = services.getAtmService();
+    }
     
     @FXML
     public void initialize() {
-        authService = AuthService.getInstance();
-        accountService = new AccountService();
-        transactionService = new TransactionService();
-        
-        if (!authService.isLoggedIn()) {
+        if (!atmService.isLoggedIn()) {
             loadDashboard();
             return;
         }
@@ -56,11 +59,11 @@ public class WithdrawController {
     }
     
     private void updateBalance() {
-        authService.refreshCurrentAccount();
-        if (authService.getCurrentAccount() != null) {
-            currentBalanceLabel.setText("Current Balance: $" + 
-                String.format("%.2f", authService.getCurrentAccount().getBalance()));
-        }
+        FxAsync.whenDone(atmService.currentAccount(), account -> {
+            if (account != null) {
+                currentBalanceLabel.setText("Current Balance: $" + Money.format(account.getBalance()));
+            }
+        }, error -> { });
     }
     
     @FXML
@@ -72,7 +75,7 @@ public class WithdrawController {
         errorLabel.setText("");
         
         try {
-            double amount = Double.parseDouble(amountField.getText().trim());
+            long amount = Money.parse(amountField.getText());
             
             if (amount <= 0) {
                 errorLabel.setText("Amount must be greater than zero");
@@ -80,33 +83,59 @@ public class WithdrawController {
                 return;
             }
             
-            String accountNumber = authService.getCurrentAccount().getAccountNumber();
-            double currentBalance = authService.getCurrentAccount().getBalance();
-            
-            if (amount > currentBalance) {
-                errorLabel.setText("Insufficient balance");
-                errorLabel.setVisible(true);
-                return;
-            }
-            
-            if (accountService.withdraw(accountNumber, amount)) {
-                transactionService.createTransaction(accountNumber, TransactionType.WITHDRAW, 
-                    amount, "Withdrawal");
-                messageLabel.setText("✅ Withdrawal successful! Amount: $" + String.format("%.2f", amount));
-                messageLabel.setVisible(true);
-                errorLabel.setVisible(false);
-                amountField.clear();
-                updateBalance();
-            } else {
-                errorLabel.setText("Withdrawal failed. Please try again.");
-                errorLabel.setVisible(true);
-            }
+            messageLabel.setText("Processing withdrawal...");
+            messageLabel.setVisible(true);
+            FxAsync.setPending(true, withdrawButton, amountField);
+            FxAsync.whenDone(atmService.currentAccount(), account -> {
+                if (account == null || amount > account.getBalance()) {
+                    FxAsync.setPending(false, withdrawButton, amountField);
+                    messageLabel.setVisible(false);
+                    errorLabel.setText("Insufficient balance");
+                    errorLabel.setVisible(true);
+                    return;
+                }
+                
+                FxAsync.whenDone(atmService.withdraw(amount), sequence -> {
+                    FxAsync.setPending(false, withdrawButton, amountField);
+                    if (sequence == LedgerSequencer.NOT_DURABLE) {
+                        showNotSaved(amount);
+                    } else if (sequence != LedgerSequencer.REJECTED) {
+                        messageLabel.setText("✅ Withdrawal successful! Amount: $" + Money.format(amount));
+                        messageLabel.setVisible(true);
+                        errorLabel.setVisible(false);
+                        amountField.clear();
+                        updateBalance();
+                    } else {
+                        showWithdrawFailed();
+                    }
+                }, error -> {
+                    FxAsync.setPending(false, withdrawButton, amountField);
+                    showWithdrawFailed();
+                });
+            }, error -> {
+                FxAsync.setPending(false, withdrawButton, amountField);
+                showWithdrawFailed();
+            });
         } catch (NumberFormatException e) {
             errorLabel.setText("Please enter a valid amount");
             errorLabel.setVisible(true);
         }
     }
     
+    private void showNotSaved(long amount) {
+        errorLabel.setVisible(false);
+        messageLabel.setText("Withdrawal of $" + Money.format(amount) + " was applied but could not be saved yet.");
+        messageLabel.setVisible(true);
+        amountField.clear(); // Applied, so it must not be submitted again
+        updateBalance();
+    }
+    
+    private void showWithdrawFailed() {
+        messageLabel.setVisible(false);
+        errorLabel.setText("Withdrawal failed. Please try again.");
+        errorLabel.setVisible(true);
+    }
+    
     @FXML
     private void handleBack() {
         loadDashboard();
@@ -114,7 +143,7 @@ public class WithdrawController {
     
     private void loadDashboard() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/views/Dashboard.fxml"));
+            FXMLLoader loader = ViewLoader.loader("/views/Dashboard.fxml");
             Parent root = loader.load();
             Scene scene = rootPane.getScene();
             scene.setRoot(root);
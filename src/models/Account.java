@@ -1,18 +1,47 @@
 package models;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 
 /**
  * Account model representing a bank account in the ATM system.
  * Stores account information including account number, name, PIN hash, balance, and creation date.
+ * The balance is an atomically updatable cell so single-account operations can
+ * check and update it with compare-and-set instead of a lock.
  */
 public class Account {
+    /** Longest holder name storage accepts, in UTF-8 bytes; the binary account table holds no more. */
+    public static final int MAX_NAME_BYTES = 125;
+
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private String accountNumber;
     private String name;
     private String hashedPin;
-    private double balance;
+    private volatile long balance; // Minor units (cents), see Money
     private LocalDateTime creationDate;
     
+    /**
+     * Checks that a holder name fits the storage limit.
+     *
+     * @param name The holder name
+     * @return true if its UTF-8 form is at most {@link #MAX_NAME_BYTES} bytes
+     */
+    public static boolean fitsName(String name) {
+        return name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES;
+    }
+    
     /**
      * Default constructor.
      */
@@ -26,10 +55,10 @@ public class Account {
      * @param accountNumber The unique account number
      * @param name The account holder's name
      * @param hashedPin The hashed PIN for security
-     * @param balance The account balance
+     * @param balance The account balance in minor units
      * @param creationDate The account creation date
      */
-    public Account(String accountNumber, String name, String hashedPin, double balance, LocalDateTime creationDate) {
+    public Account(String accountNumber, String name, String hashedPin, long balance, LocalDateTime creationDate) {
         this.accountNumber = accountNumber;
         this.name = name;
         this.hashedPin = hashedPin;
@@ -62,13 +91,39 @@ public class Account {
         this.hashedPin = hashedPin;
     }
     
-    public double getBalance() {
+    /**
+     * Gets the balance in minor units (cents).
+     *
+     * @return The balance in minor units
+     */
+    public long getBalance() {
         return balance;
     }
     
-    public void setBalance(double balance) {
+    public void setBalance(long balance) {
         this.balance = balance;
     }
+
+    /**
+     * Atomically sets the balance if it still holds the expected value.
+     *
+     * @param expected The balance the caller based its update on
+     * @param newBalance The new balance in minor units
+     * @return true if the balance was updated, false if another update won the race
+     */
+    public boolean compareAndSetBalance(long expected, long newBalance) {
+        return BALANCE.compareAndSet(this, expected, newBalance);
+    }
+
+    /**
+     * Atomically replaces the balance.
+     *
+     * @param newBalance The new balance in minor units
+     * @return The balance before the update
+     */
+    public long getAndSetBalance(long newBalance) {
+        return (long) BALANCE.getAndSet(this, newBalance);
+    }
     
     public LocalDateTime getCreationDate() {
         return creationDate;
@@ -80,34 +135,35 @@ public class Account {
     
     /**
      * Converts account to string format for file storage.
-     * Format: accountNumber|name|hashedPin|balance|creationDate
+     * Format: accountNumber|name|hashedPin|balance|creationDate, with the balance as a decimal amount
      * 
      * @return String representation of the account
      */
     public String toFileString() {
-        return accountNumber + "|" + name + "|" + hashedPin + "|" + balance + "|" + creationDate.toString();
+        return accountNumber + "|" + name + "|" + hashedPin + "|" + Money.format(balance) + "|" + creationDate.toString();
     }
     
     /**
      * Creates an Account object from a file string.
      * 
+     * Malformed lines are not reported here; callers count the nulls and report them once.
+     * 
      * @param fileString The string from the file
-     * @return Account object or null if parsing fails
+     * @return Account object or null if the line is malformed
      */
     public static Account fromFileString(String fileString) {
         try {
-            String[] parts = fileString.split("\\|");
-            if (parts.length == 5) {
-                Account account = new Account();
-                account.setAccountNumber(parts[0]);
-                account.setName(parts[1]);
-                account.setHashedPin(parts[2]);
-                account.setBalance(Double.parseDouble(parts[3]));
-                account.setCreationDate(LocalDateTime.parse(parts[4]));
-                return account;
+            RecordScanner fields = new RecordScanner(fileString);
+            String accountNumber = fields.require().text();
+            String name = fields.require().text();
+            String hashedPin = fields.require().text();
+            long balance = fields.require().amount();
+            LocalDateTime creationDate = fields.require().timestamp();
+            if (!fields.next()) {
+                return new Account(accountNumber, name, hashedPin, balance, creationDate);
             }
-        } catch (Exception e) {
-            System.err.println("Error parsing account: " + e.getMessage());
+        } catch (IllegalArgumentException | DateTimeException e) {
+            // Malformed field; reported by the caller
         }
         return null;
     }
@@ -117,7 +173,7 @@ public class Account {
         return "Account{" +
                 "accountNumber='" + accountNumber + '\'' +
                 ", name='" + name + '\'' +
-                ", balance=" + balance +
+                ", balance=" + Money.format(balance) +
                 ", creationDate=" + creationDate +
                 '}';
     }
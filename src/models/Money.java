@@ -0,0 +1,131 @@
+package models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for money amounts held as long minor units (cents).
+ * Balances and transaction amounts are stored as exact integers so arithmetic,
+ * comparisons and aggregation never suffer floating-point rounding drift.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+    public static final long MINOR_PER_MAJOR = 100;
+
+    /**
+     * Private constructor; this class only has static helpers.
+     */
+    private Money() {
+    }
+
+    /**
+     * Parses a decimal amount such as "12.34" into minor units. Amounts with more
+     * than two significant fraction digits are rejected rather than rounded, so what
+     * a user typed is exactly what is booked.
+     *
+     * @param text The decimal amount
+     * @return The amount in minor units
+     * @throws NumberFormatException if the text is not a valid amount, has fractions of
+     *                               a minor unit or is out of range
+     */
+    public static long parse(String text) {
+        BigDecimal amount = new BigDecimal(text.trim());
+        try {
+            amount = amount.setScale(SCALE, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount has more than " + SCALE + " decimal places: " + text);
+        }
+        return toMinorUnits(amount, text);
+    }
+
+    /**
+     * Parses a stored amount, which older files wrote with Double.toString: exponent
+     * forms like "1.0E7" and binary fractions like "0.30000000000000004" are accepted
+     * and rounded half-up to minor units.
+     *
+     * @param text The stored amount
+     * @return The amount in minor units
+     * @throws NumberFormatException if the text is not a valid amount or is out of range
+     */
+    static long parseStored(String text) {
+        return toMinorUnits(new BigDecimal(text.trim()).setScale(SCALE, RoundingMode.HALF_UP), text);
+    }
+
+    private static long toMinorUnits(BigDecimal amount, String text) {
+        try {
+            return amount.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * Parses the stored amount in a region of a string without copying it.
+     * The plain form the storage files use, an optional minus sign, digits and at
+     * most two fraction digits, is decoded directly; anything else goes through
+     * {@link #parseStored(String)}.
+     *
+     * @param text  The characters holding the amount
+     * @param start The index of the first character of the amount
+     * @param end   The index after the last character of the amount
+     * @return The amount in minor units
+     * @throws NumberFormatException if the region is not a valid amount
+     */
+    static long parse(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = i < end && text.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long major = 0;
+        int integerDigits = 0;
+        while (i < end && integerDigits < 16) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            major = major * 10 + digit;
+            integerDigits++;
+            i++;
+        }
+        long minor = 0;
+        int fractionDigits = 0;
+        if (integerDigits > 0 && i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && fractionDigits < SCALE) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                minor = minor * 10 + digit;
+                fractionDigits++;
+                i++;
+            }
+            if (fractionDigits == 0) {
+                i = -1; // "12." is left to BigDecimal
+            }
+        }
+        if (integerDigits == 0 || i != end) {
+            return parseStored(text.subSequence(start, end).toString()); // Exponents, long fractions, whitespace, errors
+        }
+        for (int digit = fractionDigits; digit < SCALE; digit++) {
+            minor *= 10;
+        }
+        long value = major * MINOR_PER_MAJOR + minor;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Formats minor units as a plain decimal with two fraction digits, e.g. "-12.05".
+     * Used both for display and for the storage formats.
+     *
+     * @param minorUnits The amount in minor units
+     * @return The formatted amount
+     */
+    public static String format(long minorUnits) {
+        long major = Math.abs(minorUnits / MINOR_PER_MAJOR);
+        long minor = Math.abs(minorUnits % MINOR_PER_MAJOR);
+        String sign = minorUnits < 0 ? "-" : "";
+        return sign + major + "." + (minor < 10 ? "0" : "") + minor;
+    }
+}
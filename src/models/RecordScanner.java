@@ -0,0 +1,184 @@
+package models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single-pass reader of the pipe-separated fields of one storage line.
+ * Replaces {@code String.split("\\|")}: no regex and no field array, and amounts,
+ * timestamps and enum names are decoded straight from the line without first
+ * copying them into a String. Only fields that are kept as text are copied.
+ * The line may be any CharSequence, so bulk readers can pass a reused character
+ * buffer instead of a String per line.
+ * Malformed input is reported with {@link IllegalArgumentException} or one of
+ * its subclasses.
+ */
+final class RecordScanner {
+    private static final char SEPARATOR = '|';
+
+    private final CharSequence line;
+    private final int lineLength;
+    private int position;
+    private int fieldEnd;
+
+    /**
+     * Creates a scanner positioned before the first field.
+     *
+     * @param line The storage line, without its line terminator; only read while scanning
+     */
+    RecordScanner(CharSequence line) {
+        this.line = line;
+        this.lineLength = line.length();
+        this.position = 0;
+        this.fieldEnd = -1;
+    }
+
+    /**
+     * Advances to the next field.
+     *
+     * @return true if there was another field, false at the end of the line
+     */
+    boolean next() {
+        if (fieldEnd >= 0) {
+            if (fieldEnd == lineLength) {
+                return false;
+            }
+            position = fieldEnd + 1;
+        }
+        int end = position;
+        while (end < lineLength && line.charAt(end) != SEPARATOR) {
+            end++;
+        }
+        fieldEnd = end;
+        return true;
+    }
+
+    /**
+     * Advances to the next field, which must exist.
+     *
+     * @return This scanner
+     * @throws IllegalArgumentException if the line has no more fields
+     */
+    RecordScanner require() {
+        if (!next()) {
+            throw new IllegalArgumentException("Missing field");
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether the current field is empty.
+     *
+     * @return true if the field has no characters
+     */
+    boolean isEmpty() {
+        return position == fieldEnd;
+    }
+
+    /**
+     * Copies the current field.
+     *
+     * @return The field text
+     */
+    String text() {
+        return line.subSequence(position, fieldEnd).toString();
+    }
+
+    /**
+     * Decodes the current field as an amount in minor units.
+     *
+     * @return The amount
+     * @throws NumberFormatException if the field is not a valid amount
+     */
+    long amount() {
+        return Money.parse(line, position, fieldEnd);
+    }
+
+    /**
+     * Matches the current field against the constant names of an enum.
+     *
+     * @param constants The enum's constants, e.g. from {@code values()}
+     * @param <E>       The enum type
+     * @return The constant whose name equals the field
+     * @throws IllegalArgumentException if no constant has that name
+     */
+    <E extends Enum<E>> E constant(E[] constants) {
+        int length = fieldEnd - position;
+        for (E constant : constants) {
+            String name = constant.name();
+            if (name.length() == length && matches(name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown constant " + text());
+    }
+
+    /**
+     * Decodes the current field as a timestamp written by {@link LocalDateTime#toString()}:
+     * {@code yyyy-MM-ddTHH:mm}, optionally followed by {@code :ss} and a fraction of
+     * one to nine digits. Any other shape falls back to {@link LocalDateTime#parse}.
+     *
+     * @return The timestamp
+     * @throws java.time.DateTimeException if the field is not a valid timestamp
+     */
+    LocalDateTime timestamp() {
+        int start = position;
+        int length = fieldEnd - start;
+        if (length >= 16 && line.charAt(start + 4) == '-' && line.charAt(start + 7) == '-'
+                && line.charAt(start + 10) == 'T' && line.charAt(start + 13) == ':') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            int hour = digits(start + 11, 2);
+            int minute = digits(start + 14, 2);
+            int second = 0;
+            int nano = 0;
+            boolean valid = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0;
+            if (valid && length > 16) {
+                valid = length >= 19 && line.charAt(start + 16) == ':';
+                second = valid ? digits(start + 17, 2) : -1;
+                valid = second >= 0;
+                if (valid && length > 19) {
+                    int fractionDigits = length - 20;
+                    valid = line.charAt(start + 19) == '.' && fractionDigits >= 1 && fractionDigits <= 9;
+                    nano = valid ? digits(start + 20, fractionDigits) : -1;
+                    valid = nano >= 0;
+                    for (int i = fractionDigits; valid && i < 9; i++) {
+                        nano *= 10;
+                    }
+                }
+            }
+            if (valid) {
+                return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+            }
+        }
+        return LocalDateTime.parse(line.subSequence(start, fieldEnd));
+    }
+
+    private boolean matches(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (line.charAt(position + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a fixed number of decimal digits.
+     *
+     * @param start The index of the first digit
+     * @param count The number of digits
+     * @return The value, or -1 if any character is not a digit
+     */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
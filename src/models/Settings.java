@@ -2,16 +2,37 @@ package models;
 
 /**
  * Settings model for storing application preferences.
- * Currently stores theme preference (dark/light mode).
+ * Stores theme preference (dark/light mode) and the storage durability mode.
  */
 public class Settings {
+    /**
+     * How eagerly storage writes are forced to the device.
+     * STRICT syncs every mutation, GROUP syncs once per group commit,
+     * RELAXED leaves flushing to the operating system.
+     */
+    public enum DurabilityMode {
+        STRICT, GROUP, RELAXED
+    }
+    
+    /**
+     * Storage format for accounts, chosen at startup.
+     * TEXT is the pipe-delimited accounts.txt, MAPPED the memory-mapped binary table.
+     */
+    public enum AccountEngine {
+        TEXT, MAPPED
+    }
+    
     private boolean darkMode;
+    private DurabilityMode durabilityMode;
+    private AccountEngine accountEngine;
     
     /**
      * Default constructor with dark mode as default.
      */
     public Settings() {
         this.darkMode = true;
+        this.durabilityMode = DurabilityMode.GROUP;
+        this.accountEngine = AccountEngine.TEXT;
     }
     
     /**
@@ -21,6 +42,8 @@ public class Settings {
      */
     public Settings(boolean darkMode) {
         this.darkMode = darkMode;
+        this.durabilityMode = DurabilityMode.GROUP;
+        this.accountEngine = AccountEngine.TEXT;
     }
     
     public boolean isDarkMode() {
@@ -31,25 +54,50 @@ public class Settings {
         this.darkMode = darkMode;
     }
     
+    public DurabilityMode getDurabilityMode() {
+        return durabilityMode;
+    }
+    
+    public void setDurabilityMode(DurabilityMode durabilityMode) {
+        this.durabilityMode = durabilityMode;
+    }
+    
+    public AccountEngine getAccountEngine() {
+        return accountEngine;
+    }
+    
+    public void setAccountEngine(AccountEngine accountEngine) {
+        this.accountEngine = accountEngine;
+    }
+    
     /**
      * Converts settings to string format for file storage.
-     * Format: darkMode
+     * Format: darkMode|durabilityMode|accountEngine
      * 
      * @return String representation of settings
      */
     public String toFileString() {
-        return String.valueOf(darkMode);
+        return darkMode + "|" + durabilityMode.name() + "|" + accountEngine.name();
     }
     
     /**
      * Creates a Settings object from a file string.
+     * Older files may hold only the leading fields; missing ones keep their defaults.
      * 
      * @param fileString The string from the file
      * @return Settings object with default values if parsing fails
      */
     public static Settings fromFileString(String fileString) {
         try {
-            return new Settings(Boolean.parseBoolean(fileString.trim()));
+            String[] parts = fileString.trim().split("\\|");
+            Settings settings = new Settings(Boolean.parseBoolean(parts[0]));
+            if (parts.length > 1) {
+                settings.setDurabilityMode(DurabilityMode.valueOf(parts[1]));
+            }
+            if (parts.length > 2) {
+                settings.setAccountEngine(AccountEngine.valueOf(parts[2]));
+            }
+            return settings;
         } catch (Exception e) {
             System.err.println("Error parsing settings: " + e.getMessage());
             return new Settings(); // Return default settings
@@ -1,5 +1,6 @@
 package models;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 
 /**
@@ -10,12 +11,14 @@ public class Transaction {
     public enum TransactionType {
         DEPOSIT, WITHDRAW, TRANSFER
     }
+
+    private static final TransactionType[] TYPES = TransactionType.values();
     
     private String transactionId;
     private String accountNumber;
     private String targetAccountNumber; // For transfers
     private TransactionType type;
-    private double amount;
+    private long amount; // Minor units (cents), see Money
     private LocalDateTime timestamp;
     private String description;
     
@@ -32,12 +35,12 @@ public class Transaction {
      * @param transactionId Unique transaction ID
      * @param accountNumber The account number involved
      * @param type The type of transaction
-     * @param amount The transaction amount
+     * @param amount The transaction amount in minor units
      * @param timestamp When the transaction occurred
      * @param description Optional description
      */
     public Transaction(String transactionId, String accountNumber, TransactionType type, 
-                      double amount, LocalDateTime timestamp, String description) {
+                      long amount, LocalDateTime timestamp, String description) {
         this.transactionId = transactionId;
         this.accountNumber = accountNumber;
         this.type = type;
@@ -79,11 +82,16 @@ public class Transaction {
         this.type = type;
     }
     
-    public double getAmount() {
+    /**
+     * Gets the amount in minor units (cents).
+     *
+     * @return The amount in minor units
+     */
+    public long getAmount() {
         return amount;
     }
     
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
     
@@ -113,37 +121,34 @@ public class Transaction {
         String target = targetAccountNumber != null ? targetAccountNumber : "";
         String desc = description != null ? description : "";
         return transactionId + "|" + accountNumber + "|" + target + "|" + 
-               type.name() + "|" + amount + "|" + timestamp.toString() + "|" + desc;
+               type.name() + "|" + Money.format(amount) + "|" + timestamp.toString() + "|" + desc;
     }
     
     /**
      * Creates a Transaction object from a file string.
      * 
-     * @param fileString The string from the file
-     * @return Transaction object or null if parsing fails
+     * Malformed lines are not reported here; callers count the nulls and report them once.
+     * 
+     * @param fileString The line from the file; may be a reused buffer, which is not kept
+     * @return Transaction object or null if the line is malformed
      */
-    public static Transaction fromFileString(String fileString) {
+    public static Transaction fromFileString(CharSequence fileString) {
         try {
-            String[] parts = fileString.split("\\|");
-            if (parts.length >= 6) {
-                Transaction transaction = new Transaction();
-                transaction.setTransactionId(parts[0]);
-                transaction.setAccountNumber(parts[1]);
-                if (!parts[2].isEmpty()) {
-                    transaction.setTargetAccountNumber(parts[2]);
-                }
-                transaction.setType(TransactionType.valueOf(parts[3]));
-                transaction.setAmount(Double.parseDouble(parts[4]));
-                transaction.setTimestamp(LocalDateTime.parse(parts[5]));
-                if (parts.length > 6) {
-                    transaction.setDescription(parts[6]);
-                }
-                return transaction;
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing transaction: " + e.getMessage());
+            RecordScanner fields = new RecordScanner(fileString);
+            String transactionId = fields.require().text();
+            String accountNumber = fields.require().text();
+            String target = fields.require().isEmpty() ? null : fields.text();
+            TransactionType type = fields.require().constant(TYPES);
+            long amount = fields.require().amount();
+            LocalDateTime timestamp = fields.require().timestamp();
+            String description = fields.next() && !fields.isEmpty() ? fields.text() : null;
+            // The full constructor skips the clock read of the default one
+            Transaction transaction = new Transaction(transactionId, accountNumber, type, amount, timestamp, description);
+            transaction.setTargetAccountNumber(target);
+            return transaction;
+        } catch (IllegalArgumentException | DateTimeException e) {
+            return null;
         }
-        return null;
     }
     
     @Override
@@ -152,7 +157,7 @@ public class Transaction {
                 "transactionId='" + transactionId + '\'' +
                 ", accountNumber='" + accountNumber + '\'' +
                 ", type=" + type +
-                ", amount=" + amount +
+                ", amount=" + Money.format(amount) +
                 ", timestamp=" + timestamp +
                 '}';
     }
@@ -0,0 +1,41 @@
+package models;
+
+import java.util.List;
+
+/**
+ * One page of an account's transaction history, newest first.
+ * The cursor is opaque to callers; pass it back to fetch the following page.
+ */
+public class TransactionPage {
+    private final List<Transaction> transactions;
+    private final String nextCursor;
+
+    /**
+     * Creates a page.
+     *
+     * @param transactions The transactions on this page, newest first
+     * @param nextCursor   The cursor of the following page, or null if this is the last page
+     */
+    public TransactionPage(List<Transaction> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks whether older transactions remain after this page.
+     *
+     * @return true if there is a following page
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
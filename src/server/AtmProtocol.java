@@ -0,0 +1,119 @@
+package server;
+
+import models.Account;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Wire format shared by {@link AtmServer} and {@link RemoteAtmBackend}.
+ * Each message is a 4-byte big-endian length followed by that many bytes of UTF-8 text.
+ * The text is newline-separated: a request is the command followed by its arguments,
+ * a response is {@link #OK} or {@link #ERR} followed by the result lines.
+ * Amounts travel as minor units, accounts and transactions in their file format.
+ */
+public final class AtmProtocol {
+    public static final int MAX_FRAME_BYTES = 1 << 20;
+
+    public static final String OK = "OK";
+    public static final String ERR = "ERR";
+
+    public static final String LOGIN = "LOGIN";
+    public static final String LOGOUT = "LOGOUT";
+    public static final String ACCOUNT = "ACCOUNT";
+    public static final String FIND = "FIND";
+    public static final String CREATE = "CREATE";
+    public static final String VERIFY_PIN = "VERIFY_PIN";
+    public static final String CHANGE_PIN = "CHANGE_PIN";
+    public static final String RESET_PIN = "RESET_PIN";
+    public static final String DEPOSIT = "DEPOSIT";
+    public static final String WITHDRAW = "WITHDRAW";
+    public static final String TRANSFER = "TRANSFER";
+    public static final String HISTORY_PAGE = "HISTORY_PAGE";
+    public static final String STATEMENT = "STATEMENT";
+
+    /** Most transactions one STATEMENT response carries, so it stays well within a frame. */
+    public static final int MAX_STATEMENT_LENGTH = 500;
+
+    /**
+     * Private constructor; this class only has static helpers.
+     */
+    private AtmProtocol() {
+    }
+
+    /**
+     * Writes one frame and flushes it.
+     *
+     * @param out   The connection's output stream
+     * @param lines The lines making up the message
+     * @throws IOException if the connection fails
+     */
+    public static void writeFrame(DataOutputStream out, List<String> lines) throws IOException {
+        byte[] payload = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        if (payload.length > MAX_FRAME_BYTES) {
+            throw new IOException("Frame too large: " + payload.length + " bytes");
+        }
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Reads one frame.
+     *
+     * @param in The connection's input stream
+     * @return The lines of the message, or null if the peer closed the connection
+     * @throws IOException if the connection fails or the frame is malformed
+     */
+    public static String[] readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+    }
+
+    /**
+     * Encodes an account for the wire without its PIN hash.
+     *
+     * @param account The account
+     * @return The account line
+     */
+    public static String encodeAccount(Account account) {
+        Account copy = new Account(account.getAccountNumber(), account.getName(), "",
+                account.getBalance(), account.getCreationDate());
+        return copy.toFileString();
+    }
+
+    /**
+     * Checks that a value fits on one protocol line.
+     *
+     * @param value The value to send
+     * @return true if the value can be sent as an argument
+     */
+    public static boolean isSendable(String value) {
+        return value != null && value.indexOf('\n') < 0;
+    }
+
+    /**
+     * Checks a holder name sent with CREATE: not blank, free of the storage field
+     * separator and within the storage length limit.
+     *
+     * @param name The requested holder name
+     * @return true if an account may be created with the name
+     */
+    public static boolean isValidName(String name) {
+        return name != null && !name.isBlank() && name.indexOf('|') < 0 && Account.fitsName(name.trim());
+    }
+}
@@ -0,0 +1,265 @@
+package server;
+
+import models.Account;
+import models.Transaction;
+import models.TransactionPage;
+import services.AccountService;
+import services.AuthService;
+import services.LedgerSequencer;
+import services.ServiceRegistry;
+import services.SessionManager;
+import services.TransactionService;
+import utils.SecurityUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless transaction server so several terminals can share one set of storage files.
+ * Listens on the loopback interface and serves each connection on its own virtual thread,
+ * which blocks on socket reads and ledger futures without holding a platform thread.
+ * Every connection holds its own token in the shared {@link SessionManager}; the storage
+ * and ledger are shared by all of them.
+ * Wrong PINs are throttled on two levels: {@link AuthService} locks an account after
+ * repeated failures from any connection, and a connection is slowed down after each
+ * failed login or PIN reset and closed after {@value #MAX_FAILED_ATTEMPTS_PER_CONNECTION}.
+ */
+public class AtmServer {
+    public static final int DEFAULT_PORT = 5050;
+    private static final int MAX_FAILED_ATTEMPTS_PER_CONNECTION = 3;
+    private static final long FAILED_ATTEMPT_DELAY_MILLIS = 1000;
+
+    private final int port;
+    private final AuthService authService;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final LedgerSequencer ledger;
+    private final SessionManager sessionManager;
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Creates a server over the process-wide services.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     */
+    public AtmServer(int port) {
+        this.port = port;
+        authService = AuthService.getInstance();
+        accountService = ServiceRegistry.getInstance().getAccountService();
+        transactionService = ServiceRegistry.getInstance().getTransactionService();
+        ledger = LedgerSequencer.getInstance();
+        sessionManager = SessionManager.getInstance();
+    }
+
+    /**
+     * Accepts connections until {@link #stop()} is called. Blocks the calling thread.
+     */
+    public void serve() {
+        try (ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket = socket;
+            System.out.println("ATM server listening on " + socket.getLocalSocketAddress());
+            while (!socket.isClosed()) {
+                Socket connection = socket.accept();
+                Thread.ofVirtual().name("atm-connection-" + connection.getPort()).start(() -> handle(connection));
+            }
+        } catch (IOException e) {
+            if (serverSocket == null || !serverSocket.isClosed()) {
+                System.err.println("Error running server: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections. Connections already open finish their current request.
+     */
+    public void stop() {
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping server: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the port the server is bound to.
+     *
+     * @return The bound port, or -1 if the server is not listening yet
+     */
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket != null ? socket.getLocalPort() : -1;
+    }
+
+    /**
+     * Serves one terminal until it disconnects.
+     */
+    private void handle(Socket connection) {
+        Session session = new Session();
+        try (Socket socket = connection;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            String[] request;
+            while (session.failedAttempts < MAX_FAILED_ATTEMPTS_PER_CONNECTION
+                    && (request = AtmProtocol.readFrame(in)) != null) {
+                List<String> response;
+                try {
+                    response = dispatch(session, request);
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling " + request[0] + ": " + e.getMessage());
+                    response = List.of(AtmProtocol.ERR, String.valueOf(e.getMessage()));
+                }
+                AtmProtocol.writeFrame(out, response);
+            }
+        } catch (IOException e) {
+            System.err.println("Error on connection: " + e.getMessage());
+        } finally {
+            sessionManager.closeSession(session.token);
+        }
+    }
+
+    /**
+     * Runs one request against the shared services.
+     */
+    private List<String> dispatch(Session session, String[] request) {
+        String account = sessionManager.getAccountNumber(session.token);
+        switch (request[0]) {
+            case AtmProtocol.LOGIN:
+                requireArgs(request, 2);
+                boolean authenticated = authService.authenticate(request[1], request[2]);
+                sessionManager.closeSession(session.token);
+                session.token = authenticated ? sessionManager.openSession(request[1]) : null;
+                if (!authenticated) {
+                    session.failed();
+                }
+                return ok(String.valueOf(authenticated));
+            case AtmProtocol.LOGOUT:
+                sessionManager.closeSession(session.token);
+                session.token = null;
+                return ok();
+            case AtmProtocol.ACCOUNT:
+                return account(account != null ? accountService.getAccountByNumber(account) : null);
+            case AtmProtocol.FIND: {
+                requireArgs(request, 1);
+                Account target = account != null ? accountService.getAccountByNumber(request[1]) : null;
+                return target != null ? ok(target.getName()) : ok(); // Only the holder, never the balance
+            }
+            case AtmProtocol.CREATE:
+                requireArgs(request, 2);
+                if (!AtmProtocol.isValidName(request[1])) {
+                    return List.of(AtmProtocol.ERR, "Invalid name");
+                }
+                return account(accountService.createAccount(request[1], request[2]));
+            case AtmProtocol.VERIFY_PIN: {
+                requireArgs(request, 1);
+                Account current = account != null ? accountService.getAccountByNumber(account) : null;
+                return ok(String.valueOf(current != null && SecurityUtils.verifyPin(request[1], current.getHashedPin())));
+            }
+            case AtmProtocol.CHANGE_PIN:
+                requireArgs(request, 1);
+                return ok(String.valueOf(account != null && accountService.updatePin(account, request[1])));
+            case AtmProtocol.RESET_PIN: {
+                requireArgs(request, 3);
+                Account target = accountService.getAccountByNumber(request[1]);
+                boolean reset = target != null && target.getName().equalsIgnoreCase(request[2])
+                        && accountService.updatePin(request[1], request[3]);
+                if (!reset) {
+                    session.failed();
+                }
+                return ok(String.valueOf(reset));
+            }
+            case AtmProtocol.DEPOSIT:
+                requireArgs(request, 1);
+                return sequence(account != null ? ledger.deposit(account, Long.parseLong(request[1])).join()
+                        : LedgerSequencer.REJECTED);
+            case AtmProtocol.WITHDRAW:
+                requireArgs(request, 1);
+                return sequence(account != null ? ledger.withdraw(account, Long.parseLong(request[1])).join()
+                        : LedgerSequencer.REJECTED);
+            case AtmProtocol.TRANSFER:
+                requireArgs(request, 2);
+                return sequence(account != null ? ledger.transfer(account, request[1], Long.parseLong(request[2])).join()
+                        : LedgerSequencer.REJECTED);
+            case AtmProtocol.HISTORY_PAGE: {
+                requireArgs(request, 2);
+                TransactionPage page = account != null
+                        ? transactionService.getTransactionPage(account, request[1], Integer.parseInt(request[2]))
+                        : new TransactionPage(List.of(), null);
+                List<String> response = transactions(page.getTransactions());
+                response.add(1, page.hasMore() ? page.getNextCursor() : "");
+                return response;
+            }
+            case AtmProtocol.STATEMENT:
+                requireArgs(request, 1);
+                return transactions(account != null
+                        ? transactionService.getMiniStatement(account,
+                                Math.min(Integer.parseInt(request[1]), AtmProtocol.MAX_STATEMENT_LENGTH))
+                        : List.of());
+            default:
+                return List.of(AtmProtocol.ERR, "Unknown command: " + request[0]);
+        }
+    }
+
+    private static void requireArgs(String[] request, int count) {
+        if (request.length < count + 1) {
+            throw new IllegalArgumentException(request[0] + " expects " + count + " argument(s)");
+        }
+    }
+
+    private static List<String> ok(String... lines) {
+        List<String> response = new ArrayList<>(lines.length + 1);
+        response.add(AtmProtocol.OK);
+        response.addAll(List.of(lines));
+        return response;
+    }
+
+    private static List<String> account(Account account) {
+        return account != null ? ok(AtmProtocol.encodeAccount(account)) : ok();
+    }
+
+    private static List<String> sequence(long sequence) {
+        return ok(String.valueOf(sequence));
+    }
+
+    private static List<String> transactions(List<Transaction> transactions) {
+        List<String> response = new ArrayList<>(transactions.size() + 1);
+        response.add(AtmProtocol.OK);
+        for (Transaction transaction : transactions) {
+            response.add(transaction.toFileString());
+        }
+        return response;
+    }
+
+    /**
+     * The session token and failed attempts of one connection. Only touched by that
+     * connection's thread.
+     */
+    private static final class Session {
+        private String token;
+        private int failedAttempts;
+
+        /**
+         * Counts a failed login or PIN reset and delays the answer to it. The delay
+         * only parks this connection's virtual thread.
+         */
+        private void failed() {
+            failedAttempts++;
+            try {
+                Thread.sleep(FAILED_ATTEMPT_DELAY_MILLIS * failedAttempts);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
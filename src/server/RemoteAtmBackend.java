@@ -0,0 +1,245 @@
+package server;
+
+import models.Account;
+import models.Transaction;
+import models.TransactionPage;
+import services.AtmBackend;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Client adapter that lets the controllers drive an {@link AtmServer} through the same
+ * {@link AtmBackend} interface as the local services. Requests share one connection and
+ * run in submission order on a single virtual thread, so a logout is never overtaken by
+ * the next login. The session's account number is mirrored locally so screens can
+ * check the login state without a round trip.
+ */
+public class RemoteAtmBackend implements AtmBackend {
+    private final String host;
+    private final int port;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofVirtual().factory());
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+    private volatile String currentAccountNumber;
+
+    /**
+     * Creates a client for a server. The connection is opened on the first request.
+     *
+     * @param host The server host
+     * @param port The server port
+     */
+    public RemoteAtmBackend(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> login(String accountNumber, String pin) {
+        return call(lines -> {
+            boolean authenticated = Boolean.parseBoolean(lines[1]);
+            currentAccountNumber = authenticated ? accountNumber : null;
+            return authenticated;
+        }, AtmProtocol.LOGIN, accountNumber, pin);
+    }
+
+    @Override
+    public void logout() {
+        currentAccountNumber = null;
+        call(lines -> null, AtmProtocol.LOGOUT);
+    }
+
+    @Override
+    public boolean isLoggedIn() {
+        return currentAccountNumber != null;
+    }
+
+    @Override
+    public String getCurrentAccountNumber() {
+        return currentAccountNumber;
+    }
+
+    @Override
+    public CompletableFuture<Account> currentAccount() {
+        return call(RemoteAtmBackend::parseAccount, AtmProtocol.ACCOUNT);
+    }
+
+    @Override
+    public CompletableFuture<String> findHolderName(String accountNumber) {
+        return call(lines -> lines.length > 1 && !lines[1].isEmpty() ? lines[1] : null, AtmProtocol.FIND, accountNumber);
+    }
+
+    @Override
+    public CompletableFuture<Account> createAccount(String name, String pin) {
+        return call(RemoteAtmBackend::parseAccount, AtmProtocol.CREATE, name, pin);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> verifyPin(String pin) {
+        return call(RemoteAtmBackend::parseBoolean, AtmProtocol.VERIFY_PIN, pin);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> changePin(String newPin) {
+        return call(RemoteAtmBackend::parseBoolean, AtmProtocol.CHANGE_PIN, newPin);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> resetPin(String accountNumber, String name, String newPin) {
+        return call(RemoteAtmBackend::parseBoolean, AtmProtocol.RESET_PIN, accountNumber, name, newPin);
+    }
+
+    @Override
+    public CompletableFuture<Long> deposit(long amount) {
+        return call(RemoteAtmBackend::parseLong, AtmProtocol.DEPOSIT, String.valueOf(amount));
+    }
+
+    @Override
+    public CompletableFuture<Long> withdraw(long amount) {
+        return call(RemoteAtmBackend::parseLong, AtmProtocol.WITHDRAW, String.valueOf(amount));
+    }
+
+    @Override
+    public CompletableFuture<Long> transfer(String toAccountNumber, long amount) {
+        return call(RemoteAtmBackend::parseLong, AtmProtocol.TRANSFER, toAccountNumber, String.valueOf(amount));
+    }
+
+    @Override
+    public CompletableFuture<TransactionPage> transactionPage(String cursor, int pageSize) {
+        return call(lines -> {
+            // Line 1 is the next cursor, empty on the last page
+            String[] records = Arrays.copyOfRange(lines, 1, lines.length);
+            records[0] = AtmProtocol.OK;
+            return new TransactionPage(parseTransactions(records), lines[1].isEmpty() ? null : lines[1]);
+        }, AtmProtocol.HISTORY_PAGE, cursor != null ? cursor : "", String.valueOf(pageSize));
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> miniStatement(int limit) {
+        return call(RemoteAtmBackend::parseTransactions, AtmProtocol.STATEMENT, String.valueOf(limit));
+    }
+
+    /**
+     * Closes the connection to the server.
+     */
+    public void close() {
+        connectionLock.lock();
+        try {
+            disconnect();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    /**
+     * Queues a request behind those already sent and parses the OK response.
+     * An ERR response or a connection failure completes the future exceptionally.
+     */
+    private <T> CompletableFuture<T> call(Function<String[], T> parser, String... request) {
+        for (String arg : request) {
+            if (!AtmProtocol.isSendable(arg)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid request argument"));
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            String[] response = exchange(request);
+            if (!AtmProtocol.OK.equals(response[0])) {
+                throw new IllegalStateException(response.length > 1 ? response[1] : "Request failed");
+            }
+            return parser.apply(response);
+        }, executor);
+    }
+
+    private String[] exchange(String[] request) {
+        connectionLock.lock();
+        try {
+            if (socket == null) {
+                connect();
+            }
+            AtmProtocol.writeFrame(out, Arrays.asList(request));
+            String[] response = AtmProtocol.readFrame(in);
+            if (response == null) {
+                throw new IOException("Server closed the connection");
+            }
+            return response;
+        } catch (IOException e) {
+            // The server-side session is gone with the connection
+            disconnect();
+            currentAccountNumber = null;
+            throw new UncheckedIOException(e);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void connect() throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Error closing connection: " + e.getMessage());
+            }
+            socket = null;
+            in = null;
+            out = null;
+        }
+    }
+
+    private static Account parseAccount(String[] lines) {
+        if (lines.length < 2 || lines[1].isEmpty()) {
+            return null;
+        }
+        Account account = Account.fromFileString(lines[1]);
+        if (account == null) {
+            System.err.println("Error parsing account from server: malformed record");
+        }
+        return account;
+    }
+
+    private static Boolean parseBoolean(String[] lines) {
+        return Boolean.parseBoolean(lines[1]);
+    }
+
+    private static Long parseLong(String[] lines) {
+        return Long.parseLong(lines[1]);
+    }
+
+    private static List<Transaction> parseTransactions(String[] lines) {
+        List<Transaction> transactions = new ArrayList<>(lines.length - 1);
+        int malformed = 0;
+        for (int i = 1; i < lines.length; i++) {
+            Transaction transaction = Transaction.fromFileString(lines[i]);
+            if (transaction != null) {
+                transactions.add(transaction);
+            } else {
+                malformed++;
+            }
+        }
+        if (malformed > 0) {
+            System.err.println("Error parsing transactions from server: skipped " + malformed + " malformed record(s)");
+        }
+        return transactions;
+    }
+}
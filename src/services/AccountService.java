@@ -1,42 +1,113 @@
 package services;
 
 import models.Account;
-import utils.FileHandler;
+import utils.AccountStore;
 import utils.SecurityUtils;
+import utils.StripedLocks;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 /**
  * Service class for account-related operations.
  * Handles account creation, retrieval, and updates.
+ * Accounts are served from the shared {@link AccountStore} index, which only
+ * re-reads the accounts file when it has changed on disk.
+ * Deposits and withdrawals update the balance with a lock-free compare-and-set loop
+ * and hand the new value to the store for journaling. Multi-account and overwrite
+ * operations additionally run under the accounts' lock stripes. Journal writes are
+ * awaited after any stripe is released so they can share a group commit.
  */
 public class AccountService {
-    private List<Account> accounts;
+    private final AccountStore store;
+    private final StripedLocks locks;
 
     /**
      * Constructor that loads accounts from file.
      */
     public AccountService() {
+        store = AccountStore.getInstance();
+        locks = store.getLocks();
         loadAccounts();
     }
 
     /**
-     * Loads accounts from file storage.
+     * Refreshes the account index if the backing file changed.
      */
     private void loadAccounts() {
-        accounts = FileHandler.readAccounts();
+        store.refreshIfChanged();
     }
 
     /**
-     * Saves accounts to file storage.
+     * Saves a new or changed account to storage. Balance changes are recorded separately.
+     *
+     * @param account The account to save
+     * @return true if saved, false otherwise
+     */
+    private boolean saveAccount(Account account) {
+        return store.save(account);
+    }
+
+    /**
+     * Waits for a balance change to be committed to the journal. A failed write does
+     * not undo the change: the in-memory balance stays authoritative and the next
+     * account checkpoint persists it, so the failure is only logged.
+     *
+     * @param write The handle returned by the store
+     */
+    private void awaitJournaled(CompletableFuture<Long> write) {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            System.err.println("Error journaling balance change, kept until the next checkpoint: "
+                    + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Atomically adds to a balance with a compare-and-set retry loop.
+     *
+     * @param account The account to credit
+     * @param amount  The amount in minor units, positive
+     * @return true if credited, false if the balance would overflow
      */
-    private void saveAccounts() {
-        FileHandler.writeAccounts(accounts);
+    private boolean credit(Account account, long amount) {
+        while (true) {
+            long balance = account.getBalance();
+            if (balance > Long.MAX_VALUE - amount) {
+                return false;
+            }
+            if (account.compareAndSetBalance(balance, balance + amount)) {
+                return true;
+            }
+        }
     }
 
     /**
-     * Finds an account by number from the in-memory list.
+     * Atomically subtracts from a balance with a compare-and-set retry loop that
+     * never lets the balance go negative.
+     *
+     * @param account The account to debit
+     * @param amount  The amount in minor units, positive
+     * @return true if debited, false if the balance is insufficient
+     */
+    private boolean debit(Account account, long amount) {
+        while (true) {
+            long balance = account.getBalance();
+            if (balance < amount) {
+                return false;
+            }
+            if (account.compareAndSetBalance(balance, balance - amount)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finds an account by number in the in-memory index.
      *
      * @param accountNumber The account number to search for
      * @return Account object if found, null otherwise
@@ -45,10 +116,7 @@ public class AccountService {
         if (accountNumber == null || accountNumber.trim().isEmpty()) {
             return null;
         }
-        return accounts.stream()
-                .filter(acc -> acc.getAccountNumber().equals(accountNumber))
-                .findFirst()
-                .orElse(null);
+        return store.get(accountNumber);
     }
 
     /**
@@ -64,19 +132,58 @@ public class AccountService {
         }
 
         loadAccounts(); // Refresh before checking for uniqueness and adding
+        return insertAccount(name, pin, store.getNumberAllocator()::allocate);
+    }
 
-        String accountNumber = SecurityUtils.generateAccountNumber();
-        // Ensure account number is unique
-        while (findAccountByNumber(accountNumber) != null) {
-            accountNumber = SecurityUtils.generateAccountNumber();
+    /**
+     * Creates a new account numbered from a branch's reserved block.
+     *
+     * @param name   The account holder's name
+     * @param pin    The PIN for the account (will be hashed)
+     * @param branch The branch code whose block supplies the number
+     * @return The newly created Account object, or null if creation fails or the branch has no free numbers
+     * @see utils.AccountNumberAllocator#reserveBlock(String, long, long)
+     */
+    public Account createAccount(String name, String pin, String branch) {
+        if (name == null || name.trim().isEmpty() || pin == null || pin.length() < 4) {
+            return null;
         }
 
-        String hashedPin = SecurityUtils.hashPin(pin);
-        Account account = new Account(accountNumber, name.trim(), hashedPin, 0.0, LocalDateTime.now());
-
-        accounts.add(account);
-        saveAccounts();
+        loadAccounts();
+        return insertAccount(name, pin, () -> store.getNumberAllocator().allocate(branch));
+    }
 
+    /**
+     * Inserts an account under the first proposed number nobody else claimed meanwhile.
+     *
+     * @param name    The account holder's name
+     * @param pin     The PIN for the account (will be hashed)
+     * @param numbers Proposes unused account numbers, returning null when none are left
+     * @return The newly created Account object, or null if the name is too long, no number
+     *         was available or the account could not be saved
+     */
+    private Account insertAccount(String name, String pin, Supplier<String> numbers) {
+        if (!Account.fitsName(name.trim())) {
+            System.err.println("Error creating account: name longer than " + Account.MAX_NAME_BYTES + " bytes");
+            return null;
+        }
+        String hashedPin = SecurityUtils.hashPin(pin);
+        String accountNumber;
+        Account account;
+        do {
+            accountNumber = numbers.get();
+            if (accountNumber == null) {
+                System.err.println("Error creating account: no free account number");
+                return null;
+            }
+            account = new Account(accountNumber, name.trim(), hashedPin, 0, LocalDateTime.now());
+        } while (!store.putIfAbsent(account)); // Lost a race for the number; propose another
+
+        if (!saveAccount(account)) {
+            store.remove(account); // Not in storage, so it must not be handed out either
+            System.err.println("Error creating account: could not save account " + accountNumber);
+            return null;
+        }
         return account;
     }
 
@@ -87,7 +194,7 @@ public class AccountService {
      * @return Account object if found, null otherwise
      */
     public Account getAccountByNumber(String accountNumber) {
-        loadAccounts(); // Always refresh from file for external reads
+        loadAccounts(); // Picks up external changes to the file
         return findAccountByNumber(accountNumber);
     }
 
@@ -107,9 +214,14 @@ public class AccountService {
 
         Account account = findAccountByNumber(accountNumber);
         if (account != null) {
-            account.setHashedPin(SecurityUtils.hashPin(newPin));
-            saveAccounts();
-            return true;
+            String hashedPin = SecurityUtils.hashPin(newPin);
+            locks.lock(accountNumber);
+            try {
+                account.setHashedPin(hashedPin);
+            } finally {
+                locks.unlock(accountNumber);
+            }
+            return saveAccount(account);
         }
 
         return false;
@@ -119,65 +231,101 @@ public class AccountService {
      * Updates account balance.
      *
      * @param accountNumber The account number
-     * @param newBalance    The new balance
-     * @return true if update successful, false otherwise
+     * @param newBalance    The new balance in minor units
+     * @return true if the balance was set, false if the account does not exist
      */
-    public boolean updateBalance(String accountNumber, double newBalance) {
+    public boolean updateBalance(String accountNumber, long newBalance) {
         loadAccounts(); // Refresh before update
 
         Account account = findAccountByNumber(accountNumber);
-        if (account != null) {
-            account.setBalance(newBalance);
-            saveAccounts();
-            return true;
+        if (account == null) {
+            return false;
         }
-        return false;
+
+        CompletableFuture<Long> write;
+        locks.lock(accountNumber);
+        try {
+            long delta = newBalance - account.getAndSetBalance(newBalance);
+            write = store.recordBalanceChange(account, delta);
+        } finally {
+            locks.unlock(accountNumber);
+        }
+        awaitJournaled(write);
+        return true;
     }
 
     /**
      * Deposits money into an account.
      *
      * @param accountNumber The account number
-     * @param amount        The amount to deposit
-     * @return true if deposit successful, false otherwise
+     * @param amount        The amount to deposit in minor units
+     * @return true if the deposit was applied, false if it was rejected
      */
-    public boolean deposit(String accountNumber, double amount) {
-        if (amount <= 0) {
+    public boolean deposit(String accountNumber, long amount) {
+        CompletableFuture<Long> write = applyDeposit(accountNumber, amount);
+        if (write == null) {
             return false;
         }
+        awaitJournaled(write);
+        return true;
+    }
+
+    /**
+     * Applies a deposit in memory and queues its journal record without waiting.
+     *
+     * @param accountNumber The account number
+     * @param amount        The amount to deposit in minor units
+     * @return The journal write to await, or null if the deposit was rejected
+     */
+    CompletableFuture<Long> applyDeposit(String accountNumber, long amount) {
+        if (amount <= 0) {
+            return null;
+        }
 
         loadAccounts(); // Refresh before update
 
         Account account = findAccountByNumber(accountNumber);
-        if (account != null) {
-            account.setBalance(account.getBalance() + amount);
-            saveAccounts();
-            return true;
+        if (account == null || !credit(account, amount)) {
+            return null;
         }
-        return false;
+        return recordBalanceChange(account, amount);
     }
 
     /**
      * Withdraws money from an account.
      *
      * @param accountNumber The account number
-     * @param amount        The amount to withdraw
-     * @return true if withdrawal successful, false otherwise
+     * @param amount        The amount to withdraw in minor units
+     * @return true if the withdrawal was applied, false if it was rejected
      */
-    public boolean withdraw(String accountNumber, double amount) {
-        if (amount <= 0) {
+    public boolean withdraw(String accountNumber, long amount) {
+        CompletableFuture<Long> write = applyWithdraw(accountNumber, amount);
+        if (write == null) {
             return false;
         }
+        awaitJournaled(write);
+        return true;
+    }
+
+    /**
+     * Applies a withdrawal in memory and queues its journal record without waiting.
+     *
+     * @param accountNumber The account number
+     * @param amount        The amount to withdraw in minor units
+     * @return The journal write to await, or null if the withdrawal was rejected
+     */
+    CompletableFuture<Long> applyWithdraw(String accountNumber, long amount) {
+        if (amount <= 0) {
+            return null;
+        }
 
         loadAccounts(); // Refresh before update
 
         Account account = findAccountByNumber(accountNumber);
-        if (account != null && account.getBalance() >= amount) {
-            account.setBalance(account.getBalance() - amount);
-            saveAccounts();
-            return true;
+        if (account == null || !debit(account, amount)) {
+            return null;
         }
-        return false;
+        return recordBalanceChange(account, -amount);
     }
 
     /**
@@ -185,27 +333,74 @@ public class AccountService {
      *
      * @param fromAccountNumber The source account number
      * @param toAccountNumber   The destination account number
-     * @param amount            The amount to transfer
-     * @return true if transfer successful, false otherwise
+     * @param amount            The amount to transfer in minor units
+     * @return true if the transfer was applied, false if it was rejected
      */
-    public boolean transfer(String fromAccountNumber, String toAccountNumber, double amount) {
-        if (amount <= 0) {
+    public boolean transfer(String fromAccountNumber, String toAccountNumber, long amount) {
+        CompletableFuture<Long> write = applyTransfer(fromAccountNumber, toAccountNumber, amount);
+        if (write == null) {
             return false;
         }
+        awaitJournaled(write);
+        return true;
+    }
+
+    /**
+     * Applies a transfer in memory and queues both journal records without waiting.
+     *
+     * @param fromAccountNumber The source account number
+     * @param toAccountNumber   The destination account number
+     * @param amount            The amount to transfer in minor units
+     * @return The combined journal write to await, or null if the transfer was rejected
+     */
+    CompletableFuture<Long> applyTransfer(String fromAccountNumber, String toAccountNumber, long amount) {
+        if (amount <= 0) {
+            return null;
+        }
 
         loadAccounts(); // Load fresh data once at the start of the operation
 
         Account fromAccount = findAccountByNumber(fromAccountNumber);
         Account toAccount = findAccountByNumber(toAccountNumber);
 
-        if (fromAccount != null && toAccount != null && fromAccount.getBalance() >= amount) {
-            fromAccount.setBalance(fromAccount.getBalance() - amount);
-            toAccount.setBalance(toAccount.getBalance() + amount);
-            saveAccounts(); // This will save the modified 'this.accounts' list
-            return true;
+        if (fromAccount == null || toAccount == null) {
+            return null;
         }
 
-        return false;
+        CompletableFuture<Long> debit;
+        CompletableFuture<Long> credit;
+        locks.lockBoth(fromAccountNumber, toAccountNumber);
+        try {
+            // Deposits and withdrawals do not take stripes, so both legs still use CAS
+            if (!debit(fromAccount, amount)) {
+                return null;
+            }
+            if (!credit(toAccount, amount)) {
+                credit(fromAccount, amount); // Undo the debit; it cannot overflow
+                return null;
+            }
+            debit = recordBalanceChange(fromAccount, -amount);
+            credit = recordBalanceChange(toAccount, amount);
+        } finally {
+            locks.unlockBoth(fromAccountNumber, toAccountNumber);
+        }
+        return debit.thenCombine(credit, (debitOffset, creditOffset) -> creditOffset);
+    }
+
+    /**
+     * Journals a balance change that was already applied. The change cannot be taken
+     * back at this point, so a journal that throws yields a failed write instead.
+     *
+     * @param account The account whose balance changed
+     * @param delta   The signed amount applied, in minor units
+     * @return The journal write
+     */
+    private CompletableFuture<Long> recordBalanceChange(Account account, long delta) {
+        try {
+            return store.recordBalanceChange(account, delta);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
@@ -215,6 +410,6 @@ public class AccountService {
      */
     public List<Account> getAllAccounts() {
         loadAccounts();
-        return accounts;
+        return store.getAll();
     }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package services;
+
+import models.Account;
+import models.Transaction;
+import models.TransactionPage;
+
+import utils.TimingWheel;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade used by the controllers, safe to call from the JavaFX
+ * Application Thread. Every call is forwarded to the configured {@link AtmBackend}:
+ * the local services by default, or a transaction server when the application was
+ * started as a client. Futures complete on a background thread, so UI code must hop
+ * back to the FX thread.
+ * The logged-in session has one idle deadline on the shared {@link TimingWheel}. Every
+ * session call postpones it, whichever screen makes it; when it passes, the session is
+ * logged out and the expiry listener is told, so no screen has to own a timer.
+ */
+public class AsyncAtmService implements AtmBackend {
+    private static AsyncAtmService instance;
+    private static AtmBackend configuredBackend;
+
+    private final AtmBackend backend;
+    private final TimingWheel wheel = TimingWheel.getInstance();
+    private TimingWheel.Timeout idleTimeout;
+    private Object idleSession;
+    private volatile Runnable sessionExpiredListener;
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private AsyncAtmService(AtmBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Selects the backend before the facade is first used, e.g. a remote server client.
+     *
+     * @param backend The backend to forward calls to
+     */
+    public static synchronized void useBackend(AtmBackend backend) {
+        if (instance != null) {
+            throw new IllegalStateException("Backend must be chosen before the service is used");
+        }
+        configuredBackend = backend;
+    }
+
+    /**
+     * Gets the process-wide facade, creating the local backend unless another was chosen.
+     *
+     * @return The AsyncAtmService instance
+     */
+    public static synchronized AsyncAtmService getInstance() {
+        if (instance == null) {
+            instance = new AsyncAtmService(configuredBackend != null ? configuredBackend : new LocalAtmBackend());
+        }
+        return instance;
+    }
+
+    /**
+     * Sets what happens once the session was logged out for inactivity, e.g. showing
+     * the login screen. The listener runs on the timing wheel's thread.
+     *
+     * @param listener The listener, or null for none
+     */
+    public void setSessionExpiredListener(Runnable listener) {
+        sessionExpiredListener = listener;
+    }
+
+    /**
+     * Starts the idle deadline of a session that just logged in, replacing any earlier one.
+     */
+    private synchronized void startIdleTimeout() {
+        stopIdleTimeout();
+        Object session = new Object();
+        idleSession = session;
+        idleTimeout = wheel.schedule(() -> expire(session), SessionManager.IDLE_TIMEOUT_MILLIS);
+    }
+
+    private synchronized void stopIdleTimeout() {
+        if (idleTimeout != null) {
+            idleTimeout.cancel();
+        }
+        idleTimeout = null;
+        idleSession = null;
+    }
+
+    /**
+     * Postpones the session's idle deadline. O(1); does nothing when logged out.
+     */
+    private synchronized void touch() {
+        if (idleTimeout != null) {
+            idleTimeout.touch(SessionManager.IDLE_TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * Logs out a session whose idle deadline passed, unless it already ended.
+     */
+    private void expire(Object session) {
+        synchronized (this) {
+            if (idleSession != session) {
+                return; // Logged out or replaced by a newer login meanwhile
+            }
+            idleTimeout = null;
+            idleSession = null;
+        }
+        backend.logout();
+        Runnable listener = sessionExpiredListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> login(String accountNumber, String pin) {
+        return backend.login(accountNumber, pin).thenApply(authenticated -> {
+            if (authenticated) {
+                startIdleTimeout();
+            }
+            return authenticated;
+        });
+    }
+
+    @Override
+    public void logout() {
+        stopIdleTimeout();
+        backend.logout();
+    }
+
+    @Override
+    public boolean isLoggedIn() {
+        touch();
+        return backend.isLoggedIn();
+    }
+
+    @Override
+    public String getCurrentAccountNumber() {
+        touch();
+        return backend.getCurrentAccountNumber();
+    }
+
+    @Override
+    public CompletableFuture<Account> currentAccount() {
+        touch();
+        return backend.currentAccount();
+    }
+
+    @Override
+    public CompletableFuture<String> findHolderName(String accountNumber) {
+        touch();
+        return backend.findHolderName(accountNumber);
+    }
+
+    @Override
+    public CompletableFuture<Account> createAccount(String name, String pin) {
+        return backend.createAccount(name, pin);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> verifyPin(String pin) {
+        touch();
+        return backend.verifyPin(pin);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> changePin(String newPin) {
+        touch();
+        return backend.changePin(newPin);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> resetPin(String accountNumber, String name, String newPin) {
+        return backend.resetPin(accountNumber, name, newPin);
+    }
+
+    @Override
+    public CompletableFuture<Long> deposit(long amount) {
+        touch();
+        return backend.deposit(amount);
+    }
+
+    @Override
+    public CompletableFuture<Long> withdraw(long amount) {
+        touch();
+        return backend.withdraw(amount);
+    }
+
+    @Override
+    public CompletableFuture<Long> transfer(String toAccountNumber, long amount) {
+        touch();
+        return backend.transfer(toAccountNumber, amount);
+    }
+
+    @Override
+    public CompletableFuture<TransactionPage> transactionPage(String cursor, int pageSize) {
+        touch();
+        return backend.transactionPage(cursor, pageSize);
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> miniStatement(int limit) {
+        touch();
+        return backend.miniStatement(limit);
+    }
+}
@@ -0,0 +1,141 @@
+package services;
+
+import models.Account;
+import models.Transaction;
+import models.TransactionPage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The operations a terminal performs, scoped to that terminal's session.
+ * Implemented in-process over the local storage by {@link LocalAtmBackend}, and over
+ * the network by the client adapter in the server package. Calls return without
+ * blocking; futures complete on a background thread.
+ */
+public interface AtmBackend {
+
+    /**
+     * Authenticates and starts the session.
+     *
+     * @param accountNumber The account number
+     * @param pin           The PIN
+     * @return Future completed with true if authentication succeeded
+     */
+    CompletableFuture<Boolean> login(String accountNumber, String pin);
+
+    /**
+     * Ends the session.
+     */
+    void logout();
+
+    /**
+     * Checks whether the session is logged in.
+     *
+     * @return true if logged in
+     */
+    boolean isLoggedIn();
+
+    /**
+     * Gets the session's account number without a round trip.
+     *
+     * @return The account number, or null if not logged in
+     */
+    String getCurrentAccountNumber();
+
+    /**
+     * Fetches the session's account. Remote implementations leave the PIN hash empty.
+     *
+     * @return Future completed with the account, or null if not logged in
+     */
+    CompletableFuture<Account> currentAccount();
+
+    /**
+     * Looks up the holder of another account, e.g. to confirm a transfer target.
+     * Requires a logged-in session; nothing else about the account is exposed.
+     *
+     * @param accountNumber The account number
+     * @return Future completed with the holder's name, or null if not found or not logged in
+     */
+    CompletableFuture<String> findHolderName(String accountNumber);
+
+    /**
+     * Creates a new account.
+     *
+     * @param name The account holder's name
+     * @param pin  The PIN
+     * @return Future completed with the new account, or null if creation failed
+     */
+    CompletableFuture<Account> createAccount(String name, String pin);
+
+    /**
+     * Checks a PIN against the session's account.
+     *
+     * @param pin The PIN to check
+     * @return Future completed with true if it matches
+     */
+    CompletableFuture<Boolean> verifyPin(String pin);
+
+    /**
+     * Changes the session account's PIN.
+     *
+     * @param newPin The new PIN
+     * @return Future completed with true if the PIN was changed
+     */
+    CompletableFuture<Boolean> changePin(String newPin);
+
+    /**
+     * Resets a forgotten PIN when the holder's name matches the account.
+     *
+     * @param accountNumber The account number
+     * @param name          The account holder's name, compared case-insensitively
+     * @param newPin        The new PIN
+     * @return Future completed with true if the PIN was reset
+     */
+    CompletableFuture<Boolean> resetPin(String accountNumber, String name, String newPin);
+
+    /**
+     * Deposits into the session's account.
+     *
+     * @param amount The amount in minor units
+     * @return Future completed with the ledger sequence, {@link LedgerSequencer#REJECTED}
+     *         or {@link LedgerSequencer#NOT_DURABLE}
+     */
+    CompletableFuture<Long> deposit(long amount);
+
+    /**
+     * Withdraws from the session's account.
+     *
+     * @param amount The amount in minor units
+     * @return Future completed with the ledger sequence, {@link LedgerSequencer#REJECTED}
+     *         or {@link LedgerSequencer#NOT_DURABLE}
+     */
+    CompletableFuture<Long> withdraw(long amount);
+
+    /**
+     * Transfers from the session's account.
+     *
+     * @param toAccountNumber The destination account number
+     * @param amount          The amount in minor units
+     * @return Future completed with the ledger sequence, {@link LedgerSequencer#REJECTED}
+     *         or {@link LedgerSequencer#NOT_DURABLE}
+     */
+    CompletableFuture<Long> transfer(String toAccountNumber, long amount);
+
+    /**
+     * Loads one page of the session account's transaction history, newest first.
+     *
+     * @param cursor   The cursor of the previous page, or null for the newest page
+     * @param pageSize The maximum number of transactions on the page
+     * @return Future completed with the page
+     */
+    CompletableFuture<TransactionPage> transactionPage(String cursor, int pageSize);
+
+    /**
+     * Loads the session account's most recent transactions.
+     *
+     * @param limit The maximum number of transactions
+     * @return Future completed with the transactions
+     */
+    CompletableFuture<List<Transaction>> miniStatement(int limit);
+}
@@ -1,23 +1,44 @@
 package services;
 
 import models.Account;
+import utils.AccountStore;
 import utils.SecurityUtils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Service class for authentication operations.
  * Handles login and PIN verification.
- * Uses singleton pattern to maintain session across controllers.
+ * Uses singleton pattern to hold this terminal's session across controllers;
+ * the session itself lives in the {@link SessionManager} table.
+ * The session's account is served from a cached snapshot that store change
+ * events invalidate, so repeated reads do not go back to storage.
+ * After {@value #MAX_FAILED_ATTEMPTS} wrong PINs in a row an account is locked
+ * for a while, whichever terminal or connection the attempts came from.
  */
 public class AuthService {
+    private static final int MAX_FAILED_ATTEMPTS = 5;
+    private static final long LOCKOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private static AuthService instance;
     private AccountService accountService;
-    private String loggedInAccountNumber; // Store account number instead of Account object
+    private SessionManager sessionManager;
+    private volatile String sessionToken;
+    private volatile String sessionAccountNumber;
+    private final AtomicLong accountVersion = new AtomicLong();
+    private volatile AccountView accountView;
+    private final Map<String, FailedLogins> failedLogins = new ConcurrentHashMap<>();
 
     /**
      * Private constructor for singleton pattern.
      */
     private AuthService() {
-        this.accountService = new AccountService();
+        this.accountService = ServiceRegistry.getInstance().getAccountService();
+        this.sessionManager = SessionManager.getInstance();
+        AccountStore.getInstance().addChangeListener(this::accountChanged);
     }
 
     /**
@@ -25,7 +46,7 @@ public class AuthService {
      *
      * @return The AuthService instance
      */
-    public static AuthService getInstance() {
+    public static synchronized AuthService getInstance() {
         if (instance == null) {
             instance = new AuthService();
         }
@@ -40,32 +61,112 @@ public class AuthService {
      * @return true if authentication successful, false otherwise
      */
     public boolean login(String accountNumber, String pin) {
+        if (authenticate(accountNumber, pin)) {
+            String previous = sessionToken;
+            this.sessionAccountNumber = accountNumber;
+            this.sessionToken = sessionManager.openSession(accountNumber);
+            sessionManager.closeSession(previous);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Verifies an account number and PIN without starting a session.
+     * Used where sessions are tracked elsewhere, e.g. per server connection.
+     * A locked account is refused without checking the PIN.
+     *
+     * @param accountNumber The account number
+     * @param pin The PIN to verify
+     * @return true if the PIN matches the account, false otherwise
+     */
+    public boolean authenticate(String accountNumber, String pin) {
         Account account = accountService.getAccountByNumber(accountNumber);
-        if (account != null && SecurityUtils.verifyPin(pin, account.getHashedPin())) {
-            this.loggedInAccountNumber = accountNumber;
+        if (account == null || isLockedOut(accountNumber)) {
+            return false;
+        }
+        if (SecurityUtils.verifyPin(pin, account.getHashedPin())) {
+            failedLogins.remove(accountNumber);
             return true;
         }
+        long now = System.currentTimeMillis();
+        failedLogins.compute(accountNumber, (number, failed) -> {
+            int count = failed == null || failed.lockedUntil != 0 ? 1 : failed.count + 1; // A served lockout starts over
+            return new FailedLogins(count, count >= MAX_FAILED_ATTEMPTS ? now + LOCKOUT_MILLIS : 0);
+        });
         return false;
     }
 
+    /**
+     * Checks whether an account is locked after too many wrong PINs.
+     *
+     * @param accountNumber The account number
+     * @return true if logins to the account are refused for now
+     */
+    public boolean isLockedOut(String accountNumber) {
+        FailedLogins failed = accountNumber != null ? failedLogins.get(accountNumber) : null;
+        return failed != null && failed.lockedUntil > System.currentTimeMillis();
+    }
+
     /**
      * Logs out the current user.
      */
     public void logout() {
-        this.loggedInAccountNumber = null;
+        String token = sessionToken;
+        this.sessionToken = null;
+        this.sessionAccountNumber = null;
+        this.accountView = null;
+        sessionManager.closeSession(token);
     }
 
     /**
-     * Gets the currently logged-in account.
-     * Always fetches fresh data from storage.
+     * Gets a snapshot of the currently logged-in account.
+     * Served from memory until the account changes; storage is only checked for
+     * changes made by other processes.
      *
-     * @return Current Account object, or null if not logged in
+     * @return Current Account snapshot, or null if not logged in
      */
     public Account getCurrentAccount() {
-        if (loggedInAccountNumber != null) {
-            return accountService.getAccountByNumber(loggedInAccountNumber);
+        String accountNumber = getCurrentAccountNumber();
+        if (accountNumber == null) {
+            return null;
+        }
+        long version = accountVersion.get();
+        AccountView view = accountView;
+        if (view != null && view.version == version && view.account.getAccountNumber().equals(accountNumber)) {
+            AccountStore.getInstance().refreshIfChanged(); // A reload invalidates the view
+            if (accountVersion.get() == version) {
+                return view.account;
+            }
+            version = accountVersion.get();
+        }
+        Account account = accountService.getAccountByNumber(accountNumber);
+        if (account == null) {
+            return null;
         }
-        return null;
+        Account snapshot = new Account(account.getAccountNumber(), account.getName(), account.getHashedPin(),
+                account.getBalance(), account.getCreationDate());
+        accountView = new AccountView(version, snapshot); // Stale at once if a change raced the copy
+        return snapshot;
+    }
+
+    /**
+     * Invalidates the cached view when the session's account or the whole index changes.
+     */
+    private void accountChanged(String accountNumber) {
+        if (accountNumber == null || accountNumber.equals(sessionAccountNumber)) {
+            accountVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the logged-in account number without touching storage.
+     * Counts as activity for the session's idle timeout.
+     *
+     * @return The account number, or null if not logged in or the session expired
+     */
+    public String getCurrentAccountNumber() {
+        return sessionManager.getAccountNumber(sessionToken);
     }
 
     /**
@@ -74,14 +175,39 @@ public class AuthService {
      * @return true if logged in, false otherwise
      */
     public boolean isLoggedIn() {
-        return loggedInAccountNumber != null;
+        return getCurrentAccountNumber() != null;
     }
 
     /**
-     * Refreshes the current account data from storage.
-     * Since getCurrentAccount() always fetches fresh data, this is mainly for consistency.
+     * Drops the cached account snapshot so the next read fetches it again.
      */
     public void refreshCurrentAccount() {
-        // No need to do anything - getCurrentAccount() already fetches fresh data
+        accountVersion.incrementAndGet();
+    }
+
+    /**
+     * Consecutive wrong PINs for one account, and when its lockout ends (0 if not locked).
+     */
+    private static final class FailedLogins {
+        private final int count;
+        private final long lockedUntil;
+
+        private FailedLogins(int count, long lockedUntil) {
+            this.count = count;
+            this.lockedUntil = lockedUntil;
+        }
+    }
+
+    /**
+     * Account snapshot tagged with the change version it was taken at.
+     */
+    private static final class AccountView {
+        private final long version;
+        private final Account account;
+
+        private AccountView(long version, Account account) {
+            this.version = version;
+            this.account = account;
+        }
     }
 }
\ No newline at end of file
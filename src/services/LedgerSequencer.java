@@ -0,0 +1,271 @@
+package services;
+
+import models.Transaction;
+import models.Transaction.TransactionType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer sequencer for every balance-changing command.
+ * Callers publish deposit, withdraw and transfer commands into a pre-allocated
+ * ring buffer; one writer thread applies them in order, stamps each with a global
+ * sequence number and queues the balance journal and transaction log records for
+ * the whole batch before any of them is awaited, so a batch shares group commits.
+ * Each caller's future completes once its records are durable.
+ *
+ * Publishing claims a slot with a single atomic increment; there are no locks
+ * on the path between callers and the writer.
+ */
+public class LedgerSequencer {
+    /** Completion value of a command that was rejected; no balance was changed. */
+    public static final long REJECTED = -1;
+    /**
+     * Completion value of a command that was applied to the balances but whose records
+     * could not be committed. The balances keep the change, which the next account
+     * checkpoint persists, so callers must not report the command as failed.
+     */
+    public static final long NOT_DURABLE = -2;
+
+    private static final int RING_SIZE = 1024;
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private static LedgerSequencer instance;
+
+    private final Slot[] ring = new Slot[RING_SIZE];
+    private final int mask = RING_SIZE - 1;
+    private final AtomicLong claimCursor = new AtomicLong();
+    private final AccountService accountService = ServiceRegistry.getInstance().getAccountService();
+    private final TransactionService transactionService = ServiceRegistry.getInstance().getTransactionService();
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private long nextToApply;
+    private long sequence;
+
+    /**
+     * Private constructor for singleton pattern. Starts the writer thread.
+     */
+    private LedgerSequencer() {
+        for (int i = 0; i < RING_SIZE; i++) {
+            ring[i] = new Slot(i);
+        }
+        writer = new Thread(this::run, "ledger-sequencer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Gets the process-wide sequencer.
+     *
+     * @return The LedgerSequencer instance
+     */
+    public static synchronized LedgerSequencer getInstance() {
+        if (instance == null) {
+            instance = new LedgerSequencer();
+        }
+        return instance;
+    }
+
+    /**
+     * Submits a deposit.
+     *
+     * @param accountNumber The account number
+     * @param amount        The amount in minor units
+     * @return Future completed with the command's sequence number, {@link #REJECTED} or {@link #NOT_DURABLE}
+     */
+    public CompletableFuture<Long> deposit(String accountNumber, long amount) {
+        return publish(TransactionType.DEPOSIT, accountNumber, null, amount);
+    }
+
+    /**
+     * Submits a withdrawal.
+     *
+     * @param accountNumber The account number
+     * @param amount        The amount in minor units
+     * @return Future completed with the command's sequence number, {@link #REJECTED} or {@link #NOT_DURABLE}
+     */
+    public CompletableFuture<Long> withdraw(String accountNumber, long amount) {
+        return publish(TransactionType.WITHDRAW, accountNumber, null, amount);
+    }
+
+    /**
+     * Submits a transfer between two accounts.
+     *
+     * @param fromAccountNumber The source account number
+     * @param toAccountNumber   The destination account number
+     * @param amount            The amount in minor units
+     * @return Future completed with the command's sequence number, {@link #REJECTED} or {@link #NOT_DURABLE}
+     */
+    public CompletableFuture<Long> transfer(String fromAccountNumber, String toAccountNumber, long amount) {
+        return publish(TransactionType.TRANSFER, fromAccountNumber, toAccountNumber, amount);
+    }
+
+    /**
+     * Claims the next ring slot, fills it and makes it visible to the writer.
+     * Waits only if the writer has fallen a full ring behind.
+     */
+    private CompletableFuture<Long> publish(TransactionType type, String accountNumber,
+                                            String targetAccountNumber, long amount) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        long claim = claimCursor.getAndIncrement();
+        Slot slot = ring[(int) claim & mask];
+        while (slot.state != claim) {
+            Thread.onSpinWait(); // Slot still holds a command from the previous lap
+        }
+
+        slot.type = type;
+        slot.accountNumber = accountNumber;
+        slot.targetAccountNumber = targetAccountNumber;
+        slot.amount = amount;
+        slot.result = result;
+        slot.state = claim + 1; // Publish
+
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return result;
+    }
+
+    private void run() {
+        List<PendingCommand> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            batch.clear();
+            while (batch.size() < MAX_BATCH) {
+                Slot slot = ring[(int) nextToApply & mask];
+                if (slot.state != nextToApply + 1) {
+                    break;
+                }
+                try {
+                    batch.add(apply(slot));
+                } catch (RuntimeException e) {
+                    // apply() only throws before a balance moved; later failures complete NOT_DURABLE
+                    System.err.println("Error applying ledger command: " + e.getMessage());
+                    slot.result.complete(REJECTED);
+                }
+                slot.type = null;
+                slot.accountNumber = null;
+                slot.targetAccountNumber = null;
+                slot.result = null;
+                slot.state = nextToApply + RING_SIZE; // Free for the next lap
+                nextToApply++;
+            }
+
+            if (batch.isEmpty()) {
+                writerParked = true;
+                if (ring[(int) nextToApply & mask].state != nextToApply + 1) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+                continue;
+            }
+
+            // The writer does not wait for the group commits; futures complete as they land.
+            // It can still block on storage: a reload in loadAccounts() or a log segment roll.
+            for (PendingCommand command : batch) {
+                command.complete();
+            }
+        }
+    }
+
+    /**
+     * Applies one command to the in-memory balances and queues its records.
+     * The records are built before the balance moves, so anything thrown happens
+     * while the command can still be rejected; once it moved, a failure to queue a
+     * record becomes a failed write and the command completes {@link #NOT_DURABLE}.
+     */
+    private PendingCommand apply(Slot slot) {
+        LocalDateTime now = LocalDateTime.now();
+        Transaction[] records;
+        CompletableFuture<Long> balanceWrite;
+
+        switch (slot.type) {
+            case DEPOSIT:
+                records = new Transaction[] {TransactionService.buildTransaction(
+                        slot.accountNumber, TransactionType.DEPOSIT, slot.amount, now, "Deposit")};
+                balanceWrite = accountService.applyDeposit(slot.accountNumber, slot.amount);
+                break;
+            case WITHDRAW:
+                records = new Transaction[] {TransactionService.buildTransaction(
+                        slot.accountNumber, TransactionType.WITHDRAW, slot.amount, now, "Withdrawal")};
+                balanceWrite = accountService.applyWithdraw(slot.accountNumber, slot.amount);
+                break;
+            default:
+                records = TransactionService.buildTransferTransactions(
+                        slot.accountNumber, slot.targetAccountNumber, slot.amount, now);
+                balanceWrite = accountService.applyTransfer(slot.accountNumber, slot.targetAccountNumber, slot.amount);
+                break;
+        }
+
+        if (balanceWrite == null) {
+            return new PendingCommand(REJECTED, List.of(), slot.result);
+        }
+        List<CompletableFuture<Long>> writes = new ArrayList<>(records.length + 1);
+        for (Transaction transaction : records) {
+            try {
+                writes.add(transactionService.record(transaction));
+            } catch (RuntimeException e) {
+                writes.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        writes.add(balanceWrite);
+        return new PendingCommand(++sequence, writes, slot.result);
+    }
+
+    /**
+     * A pre-allocated ring entry. {@code state} equals the claim number it is free
+     * for, and claim + 1 once a command has been published into it.
+     */
+    private static class Slot {
+        volatile long state;
+        TransactionType type;
+        String accountNumber;
+        String targetAccountNumber;
+        long amount;
+        CompletableFuture<Long> result;
+
+        Slot(long initialState) {
+            this.state = initialState;
+        }
+    }
+
+    /**
+     * An applied command waiting for its records to be committed.
+     */
+    private static class PendingCommand {
+        final long sequence;
+        final List<CompletableFuture<Long>> writes;
+        final CompletableFuture<Long> result;
+
+        PendingCommand(long sequence, List<CompletableFuture<Long>> writes, CompletableFuture<Long> result) {
+            this.sequence = sequence;
+            this.writes = writes;
+            this.result = result;
+        }
+
+        /**
+         * Completes the caller's future once all records are written, on the
+         * thread that commits the last of them. A failed write cannot undo the
+         * balance change, which later commands may already have built on, so it
+         * completes with {@link #NOT_DURABLE} rather than {@link #REJECTED}.
+         */
+        void complete() {
+            if (sequence == REJECTED) {
+                result.complete(REJECTED);
+                return;
+            }
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    System.err.println("Error persisting ledger command " + sequence + ": " + error.getMessage());
+                    result.complete(NOT_DURABLE); // Applied in memory; only its records are missing
+                } else {
+                    result.complete(sequence);
+                }
+            });
+        }
+    }
+}
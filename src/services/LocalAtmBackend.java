@@ -0,0 +1,129 @@
+package services;
+
+import models.Account;
+import models.Transaction;
+import models.TransactionPage;
+import utils.SecurityUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Backend running the services in this process against the local storage files.
+ * The session is the {@link AuthService} singleton. Storage work runs on a virtual
+ * thread per call, and balance mutations go through the {@link LedgerSequencer}.
+ */
+public class LocalAtmBackend implements AtmBackend {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AuthService authService;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final LedgerSequencer ledger;
+
+    /**
+     * Creates a backend over the process-wide services.
+     */
+    public LocalAtmBackend() {
+        authService = AuthService.getInstance();
+        accountService = ServiceRegistry.getInstance().getAccountService();
+        transactionService = ServiceRegistry.getInstance().getTransactionService();
+        ledger = LedgerSequencer.getInstance();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> login(String accountNumber, String pin) {
+        return supply(() -> authService.login(accountNumber, pin));
+    }
+
+    @Override
+    public void logout() {
+        authService.logout();
+    }
+
+    @Override
+    public boolean isLoggedIn() {
+        return authService.isLoggedIn();
+    }
+
+    @Override
+    public String getCurrentAccountNumber() {
+        return authService.getCurrentAccountNumber();
+    }
+
+    @Override
+    public CompletableFuture<Account> currentAccount() {
+        return supply(authService::getCurrentAccount);
+    }
+
+    @Override
+    public CompletableFuture<String> findHolderName(String accountNumber) {
+        return supply(() -> {
+            Account account = authService.isLoggedIn() ? accountService.getAccountByNumber(accountNumber) : null;
+            return account != null ? account.getName() : null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Account> createAccount(String name, String pin) {
+        return supply(() -> accountService.createAccount(name, pin));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> verifyPin(String pin) {
+        return supply(() -> {
+            Account account = authService.getCurrentAccount();
+            return account != null && SecurityUtils.verifyPin(pin, account.getHashedPin());
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> changePin(String newPin) {
+        String accountNumber = getCurrentAccountNumber();
+        return supply(() -> accountNumber != null && accountService.updatePin(accountNumber, newPin));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> resetPin(String accountNumber, String name, String newPin) {
+        return supply(() -> {
+            Account account = accountService.getAccountByNumber(accountNumber);
+            return account != null && account.getName().equalsIgnoreCase(name)
+                    && accountService.updatePin(accountNumber, newPin);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> deposit(long amount) {
+        return ledger.deposit(getCurrentAccountNumber(), amount);
+    }
+
+    @Override
+    public CompletableFuture<Long> withdraw(long amount) {
+        return ledger.withdraw(getCurrentAccountNumber(), amount);
+    }
+
+    @Override
+    public CompletableFuture<Long> transfer(String toAccountNumber, long amount) {
+        return ledger.transfer(getCurrentAccountNumber(), toAccountNumber, amount);
+    }
+
+    @Override
+    public CompletableFuture<TransactionPage> transactionPage(String cursor, int pageSize) {
+        String accountNumber = getCurrentAccountNumber();
+        return supply(() -> accountNumber != null
+                ? transactionService.getTransactionPage(accountNumber, cursor, pageSize)
+                : new TransactionPage(List.of(), null));
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> miniStatement(int limit) {
+        String accountNumber = getCurrentAccountNumber();
+        return supply(() -> transactionService.getMiniStatement(accountNumber, limit));
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+}
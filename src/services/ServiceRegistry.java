@@ -0,0 +1,78 @@
+package services;
+
+/**
+ * Process-wide container for the services. Each service is created once, on first
+ * use, so screens that never touch a service never pay for loading its storage.
+ * Controllers receive the registry through the FXML controller factory instead of
+ * constructing services themselves.
+ */
+public class ServiceRegistry {
+    private static ServiceRegistry instance;
+
+    private AccountService accountService;
+    private TransactionService transactionService;
+    private SettingsService settingsService;
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private ServiceRegistry() {
+    }
+
+    /**
+     * Gets the process-wide registry.
+     *
+     * @return The ServiceRegistry instance
+     */
+    public static synchronized ServiceRegistry getInstance() {
+        if (instance == null) {
+            instance = new ServiceRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the shared account service, creating it on first use.
+     *
+     * @return The AccountService instance
+     */
+    public synchronized AccountService getAccountService() {
+        if (accountService == null) {
+            accountService = new AccountService();
+        }
+        return accountService;
+    }
+
+    /**
+     * Gets the shared transaction service, creating it on first use.
+     *
+     * @return The TransactionService instance
+     */
+    public synchronized TransactionService getTransactionService() {
+        if (transactionService == null) {
+            transactionService = new TransactionService();
+        }
+        return transactionService;
+    }
+
+    /**
+     * Gets the shared settings service, reading the settings file on first use.
+     *
+     * @return The SettingsService instance
+     */
+    public synchronized SettingsService getSettingsService() {
+        if (settingsService == null) {
+            settingsService = new SettingsService();
+        }
+        return settingsService;
+    }
+
+    /**
+     * Gets the non-blocking facade the controllers talk to.
+     *
+     * @return The AsyncAtmService instance
+     */
+    public AsyncAtmService getAtmService() {
+        return AsyncAtmService.getInstance();
+    }
+}
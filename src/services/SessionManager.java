@@ -0,0 +1,121 @@
+package services;
+
+import utils.TimingWheel;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of logged-in sessions, keyed by opaque tokens, so one process can serve
+ * many customers at once. Opening, resolving and closing a session are single
+ * hash map operations; callers authenticate first through {@link AuthService}.
+ * Each session's idle deadline lives on the shared {@link TimingWheel}, so every
+ * session is expired by one thread and activity only postpones a deadline.
+ */
+public class SessionManager {
+    /** Idle time after which a session expires, matching the dashboard's auto logout. */
+    public static final long IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    private static final int TOKEN_BYTES = 16;
+
+    private static SessionManager instance;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final TimingWheel wheel;
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private SessionManager() {
+        wheel = TimingWheel.getInstance();
+    }
+
+    /**
+     * Gets the process-wide session table.
+     *
+     * @return The SessionManager instance
+     */
+    public static synchronized SessionManager getInstance() {
+        if (instance == null) {
+            instance = new SessionManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Opens a session for an account that has already been authenticated.
+     *
+     * @param accountNumber The account number
+     * @return The new session token
+     */
+    public String openSession(String accountNumber) {
+        while (true) {
+            String token = newToken();
+            Session session = new Session(accountNumber);
+            session.idleTimeout = wheel.schedule(() -> sessions.remove(token, session), IDLE_TIMEOUT_MILLIS);
+            if (sessions.putIfAbsent(token, session) == null) {
+                return token;
+            }
+            session.idleTimeout.cancel();
+        }
+    }
+
+    /**
+     * Closes a session. Unknown or expired tokens are ignored.
+     *
+     * @param token The session token
+     */
+    public void closeSession(String token) {
+        Session session = token != null ? sessions.remove(token) : null;
+        if (session != null) {
+            session.idleTimeout.cancel();
+        }
+    }
+
+    /**
+     * Resolves a session and marks it as active.
+     *
+     * @param token The session token
+     * @return The session's account number, or null if the token is unknown or expired
+     */
+    public String getAccountNumber(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        return session.idleTimeout.touch(IDLE_TIMEOUT_MILLIS) ? session.accountNumber : null;
+    }
+
+    /**
+     * Gets the number of live sessions.
+     *
+     * @return The session count
+     */
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return encoder.encodeToString(bytes);
+    }
+
+    /**
+     * Per-session state.
+     */
+    private static final class Session {
+        private final String accountNumber;
+        private TimingWheel.Timeout idleTimeout;
+
+        private Session(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package services;
 
 import models.Settings;
+import models.Settings.AccountEngine;
+import models.Settings.DurabilityMode;
 import utils.FileHandler;
 
 /**
@@ -51,5 +53,44 @@ public class SettingsService {
     public boolean isDarkMode() {
         return settings.isDarkMode();
     }
+    
+    /**
+     * Gets the configured storage durability mode.
+     * 
+     * @return The durability mode
+     */
+    public DurabilityMode getDurabilityMode() {
+        return settings.getDurabilityMode();
+    }
+    
+    /**
+     * Updates the storage durability mode and applies it to open storage files.
+     * 
+     * @param durabilityMode The new durability mode
+     */
+    public void setDurabilityMode(DurabilityMode durabilityMode) {
+        settings.setDurabilityMode(durabilityMode);
+        FileHandler.writeSettings(settings);
+        FileHandler.setDurabilityMode(durabilityMode);
+    }
+    
+    /**
+     * Gets the configured account storage engine.
+     * 
+     * @return The account engine
+     */
+    public AccountEngine getAccountEngine() {
+        return settings.getAccountEngine();
+    }
+    
+    /**
+     * Selects the account storage engine. The engine is chosen when the account
+     * store starts, so the change takes effect on the next application start.
+     * 
+     * @param accountEngine The account engine to use
+     */
+    public void setAccountEngine(AccountEngine accountEngine) {
+        settings.setAccountEngine(accountEngine);
+        FileHandler.writeSettings(settings);
+    }
 }
-
@@ -2,11 +2,19 @@ package services;
 
 import models.Transaction;
 import models.Transaction.TransactionType;
+import models.TransactionPage;
 import utils.FileHandler;
+import utils.RecentTransactionCache;
 import utils.SecurityUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -14,20 +22,34 @@ import java.util.stream.Collectors;
  * Handles transaction creation, retrieval, and history.
  */
 public class TransactionService {
-    private List<Transaction> transactions;
+    private static final int DEFAULT_RECENT_PER_ACCOUNT = 20;
+    private static final int DEFAULT_RECENT_ACCOUNTS = 10_000;
+    private static final long WARM_TAIL_BYTES = 256 * 1024;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final RecentTransactionCache recent;
 
     /**
-     * Constructor that loads transactions from file.
+     * Constructor with the default recent-transaction cache size.
      */
     public TransactionService() {
-        loadTransactions();
+        this(DEFAULT_RECENT_PER_ACCOUNT, DEFAULT_RECENT_ACCOUNTS);
     }
 
     /**
-     * Loads transactions from file storage.
+     * Constructor. One instance is shared by every caller; the full log is only read
+     * when {@link #getAllTransactions()} asks for it and per-account queries go
+     * through the offset index. The cache of recent records per account is warmed
+     * from the tail of the log.
+     *
+     * @param recentPerAccount How many recent records to keep in memory per account
+     * @param recentAccounts   How many accounts to keep recent records for
      */
-    private void loadTransactions() {
-        transactions = FileHandler.readTransactions();
+    public TransactionService(int recentPerAccount, int recentAccounts) {
+        recent = new RecentTransactionCache(recentPerAccount, recentAccounts);
+        for (Transaction transaction : FileHandler.readTransactionsTail(WARM_TAIL_BYTES)) {
+            recent.warm(transaction);
+        }
     }
 
     /**
@@ -35,18 +57,15 @@ public class TransactionService {
      *
      * @param accountNumber The account number
      * @param type          The transaction type
-     * @param amount        The transaction amount
+     * @param amount        The transaction amount in minor units
      * @param description   Optional description
      * @return The created Transaction object
      */
     public Transaction createTransaction(String accountNumber, TransactionType type,
-                                         double amount, String description) {
-        String transactionId = SecurityUtils.generateTransactionId();
-        Transaction transaction = new Transaction(transactionId, accountNumber, type,
-                amount, LocalDateTime.now(), description);
+                                         long amount, String description) {
+        Transaction transaction = buildTransaction(accountNumber, type, amount, LocalDateTime.now(), description);
 
-        FileHandler.appendTransaction(transaction);
-        transactions.add(transaction);
+        awaitWritten(record(transaction));
 
         return transaction;
     }
@@ -56,79 +75,194 @@ public class TransactionService {
      *
      * @param fromAccountNumber The source account
      * @param toAccountNumber   The destination account
-     * @param amount            The transfer amount
+     * @param amount            The transfer amount in minor units
      * @return The created Transaction object for the sender
      */
     public Transaction createTransferTransaction(String fromAccountNumber, String toAccountNumber,
-                                                 double amount) {
-        LocalDateTime now = LocalDateTime.now();
-
-        // Create transaction for sender (outgoing transfer)
-        String transactionId1 = SecurityUtils.generateTransactionId();
-        Transaction senderTransaction = new Transaction();
-        senderTransaction.setTransactionId(transactionId1);
-        senderTransaction.setAccountNumber(fromAccountNumber);
+                                                 long amount) {
+        Transaction[] pair = buildTransferTransactions(fromAccountNumber, toAccountNumber,
+                amount, LocalDateTime.now());
+
+        CompletableFuture<Long> senderWrite = record(pair[0]);
+        CompletableFuture<Long> receiverWrite = record(pair[1]);
+
+        // Both records were queued before waiting, so they share a group commit
+        awaitWritten(senderWrite);
+        awaitWritten(receiverWrite);
+
+        return pair[0];
+    }
+
+    /**
+     * Appends a record to the log and, once it is written, to its account's recent ring.
+     *
+     * @param transaction The transaction to write
+     * @return Future completed with the record's byte offset once it is written
+     */
+    CompletableFuture<Long> record(Transaction transaction) {
+        return FileHandler.appendTransaction(transaction).thenApply(offset -> {
+            recent.add(transaction);
+            return offset;
+        });
+    }
+
+    /**
+     * Builds a single-account transaction record with a fresh ID.
+     *
+     * @param accountNumber The account number
+     * @param type          The transaction type
+     * @param amount        The transaction amount in minor units
+     * @param timestamp     When the transaction occurred
+     * @param description   Optional description
+     * @return The new Transaction object
+     */
+    static Transaction buildTransaction(String accountNumber, TransactionType type, long amount,
+                                        LocalDateTime timestamp, String description) {
+        return new Transaction(SecurityUtils.generateTransactionId(), accountNumber, type,
+                amount, timestamp, description);
+    }
+
+    /**
+     * Builds the two records of a transfer: the sender's outgoing record with a
+     * negative amount, and the receiver's incoming record.
+     *
+     * @param fromAccountNumber The source account
+     * @param toAccountNumber   The destination account
+     * @param amount            The transfer amount in minor units
+     * @param timestamp         When the transfer occurred
+     * @return The sender's and the receiver's records, in that order
+     */
+    static Transaction[] buildTransferTransactions(String fromAccountNumber, String toAccountNumber,
+                                                   long amount, LocalDateTime timestamp) {
+        Transaction senderTransaction = buildTransaction(fromAccountNumber, TransactionType.TRANSFER,
+                -amount, timestamp, "Transfer to " + toAccountNumber); // Negative for sender
         senderTransaction.setTargetAccountNumber(toAccountNumber);
-        senderTransaction.setType(TransactionType.TRANSFER);
-        senderTransaction.setAmount(-amount); // Negative for sender
-        senderTransaction.setTimestamp(now);
-        senderTransaction.setDescription("Transfer to " + toAccountNumber);
-
-        FileHandler.appendTransaction(senderTransaction);
-        transactions.add(senderTransaction);
-
-        // Create transaction for receiver (incoming transfer)
-        String transactionId2 = SecurityUtils.generateTransactionId();
-        Transaction receiverTransaction = new Transaction();
-        receiverTransaction.setTransactionId(transactionId2);
-        receiverTransaction.setAccountNumber(toAccountNumber);
+
+        Transaction receiverTransaction = buildTransaction(toAccountNumber, TransactionType.TRANSFER,
+                amount, timestamp, "Received from " + fromAccountNumber); // Positive for receiver
         receiverTransaction.setTargetAccountNumber(fromAccountNumber); // Sender as reference
-        receiverTransaction.setType(TransactionType.TRANSFER);
-        receiverTransaction.setAmount(amount); // Positive for receiver
-        receiverTransaction.setTimestamp(now);
-        receiverTransaction.setDescription("Received from " + fromAccountNumber);
 
-        FileHandler.appendTransaction(receiverTransaction);
-        transactions.add(receiverTransaction);
+        return new Transaction[] {senderTransaction, receiverTransaction};
+    }
 
-        return senderTransaction;
+    /**
+     * Waits until an appended record has been committed to the log.
+     * Failures are already reported by FileHandler.
+     *
+     * @param write The completion handle returned by FileHandler.appendTransaction
+     */
+    private void awaitWritten(CompletableFuture<Long> write) {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            // Reported by FileHandler
+        }
     }
 
     /**
-     * Gets all transactions for a specific account.
+     * Gets all transactions for a specific account, newest first.
+     * Only the account's own records are read, located through the offset index.
+     * Records are appended in the order their time-ordered IDs were issued, so
+     * reversing log order is enough and no sort is needed.
      *
      * @param accountNumber The account number
      * @return List of Transaction objects
      */
     public List<Transaction> getTransactionsByAccount(String accountNumber) {
-        loadTransactions(); // Refresh from file
-        return transactions.stream()
-                .filter(t -> t.getAccountNumber().equals(accountNumber))
-                .sorted((t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()))
-                .collect(Collectors.toList());
+        long[] offsets = FileHandler.getTransactionIndex().offsetsFor(accountNumber);
+        List<Transaction> read = FileHandler.readTransactionsAt(offsets);
+        List<Transaction> transactions = new ArrayList<>(read.size());
+        for (int i = read.size() - 1; i >= 0; i--) {
+            if (read.get(i).getAccountNumber().equals(accountNumber)) {
+                transactions.add(read.get(i));
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Gets one page of an account's history, newest first. Each page is located by
+     * a binary search in the offset index and reads only its own records, so the
+     * first page costs the same however long the history is.
+     *
+     * @param accountNumber The account number
+     * @param cursor        The cursor returned with the previous page, or null for the newest page
+     * @param pageSize      The maximum number of transactions on the page; at most 500 are returned
+     * @return The page, with the cursor of the following page if older transactions remain
+     * @throws IllegalArgumentException if the cursor is malformed or the page size is below 1
+     */
+    public TransactionPage getTransactionPage(String accountNumber, String cursor, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+        long before = cursor == null || cursor.isEmpty() ? Long.MAX_VALUE : decodeCursor(cursor);
+        // One extra offset tells whether another page follows
+        long[] offsets = FileHandler.getTransactionIndex().offsetsBefore(accountNumber, before, pageSize + 1);
+        boolean more = offsets.length > pageSize;
+        long[] pageOffsets = more ? Arrays.copyOfRange(offsets, 1, offsets.length) : offsets;
+
+        List<Transaction> transactions = new ArrayList<>(pageOffsets.length);
+        List<Transaction> read = FileHandler.readTransactionsAt(pageOffsets);
+        for (int i = read.size() - 1; i >= 0; i--) {
+            if (read.get(i).getAccountNumber().equals(accountNumber)) {
+                transactions.add(read.get(i));
+            }
+        }
+        return new TransactionPage(transactions, more ? encodeCursor(pageOffsets[0]) : null);
+    }
+
+    private static String encodeCursor(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid history cursor");
+        }
     }
 
     /**
      * Gets the last N transactions for an account (mini statement).
+     * Served from the account's ring of recent records when it is large enough.
      *
      * @param accountNumber The account number
      * @param limit         The maximum number of transactions to return
      * @return List of Transaction objects
      */
     public List<Transaction> getMiniStatement(String accountNumber, int limit) {
+        if (limit <= recent.getCapacity()) {
+            return recent.latest(accountNumber, limit, count -> readLatest(accountNumber, count));
+        }
         List<Transaction> allTransactions = getTransactionsByAccount(accountNumber);
         return allTransactions.stream()
                 .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Reads an account's latest records from the log through the offset index.
+     *
+     * @param accountNumber The account number
+     * @param count         The maximum number of records
+     * @return The records, oldest first
+     */
+    private List<Transaction> readLatest(String accountNumber, int count) {
+        long[] offsets = FileHandler.getTransactionIndex().latestOffsetsFor(accountNumber, count);
+        return FileHandler.readTransactionsAt(offsets).stream()
+                .filter(t -> t.getAccountNumber().equals(accountNumber))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Gets all transactions (for admin purposes if needed).
      *
      * @return List of all transactions
      */
     public List<Transaction> getAllTransactions() {
-        loadTransactions();
-        return transactions;
+        return FileHandler.readTransactions();
     }
 }
@@ -0,0 +1,132 @@
+package utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unused 10-digit account numbers.
+ * Uniqueness is checked against the account store's hash index, so each candidate
+ * costs O(1) however many accounts exist, and the caller inserts with
+ * {@link AccountStore#putIfAbsent} so two concurrent creations can never take the
+ * same number. Branches may reserve contiguous blocks of numbers; those are issued
+ * in order to that branch only and never drawn at random.
+ */
+public class AccountNumberAllocator {
+    private static final long NUMBER_SPACE = 10_000_000_000L;
+    private static final int MAX_RANDOM_ATTEMPTS = 1000;
+
+    private final AccountStore store;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    private final List<Block> reserved = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates an allocator over a store.
+     *
+     * @param store The store whose index holds the issued numbers
+     */
+    public AccountNumberAllocator(AccountStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Reserves a block of numbers for a branch. Numbers already in use inside the
+     * block are skipped when the branch allocates.
+     *
+     * @param branch      The branch code
+     * @param firstNumber The first number of the block
+     * @param count       How many numbers the block holds
+     * @throws IllegalArgumentException if the block is outside the number space,
+     *                                  overlaps another block, or the branch already has one
+     */
+    public synchronized void reserveBlock(String branch, long firstNumber, long count) {
+        if (firstNumber < 0 || count <= 0 || firstNumber + count > NUMBER_SPACE) {
+            throw new IllegalArgumentException("Block is outside the account number space");
+        }
+        for (Block block : reserved) {
+            if (firstNumber < block.end && block.first < firstNumber + count) {
+                throw new IllegalArgumentException("Block overlaps the block of branch " + block.branch);
+            }
+        }
+        Block block = new Block(branch, firstNumber, firstNumber + count);
+        if (blocks.putIfAbsent(branch, block) != null) {
+            throw new IllegalArgumentException("Branch " + branch + " already has a block");
+        }
+        reserved.add(block);
+    }
+
+    /**
+     * Proposes a random unused number outside every reserved block.
+     *
+     * @return A candidate account number, or null if no free number was found
+     */
+    public String allocate() {
+        for (int attempt = 0; attempt < MAX_RANDOM_ATTEMPTS; attempt++) {
+            String candidate = SecurityUtils.generateAccountNumber();
+            if (!isReserved(Long.parseLong(candidate)) && store.get(candidate) == null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Proposes the next unused number from a branch's block.
+     *
+     * @param branch The branch code
+     * @return A candidate account number, or null if the branch has no block or it is used up
+     */
+    public String allocate(String branch) {
+        Block block = blocks.get(branch);
+        if (block == null) {
+            return null;
+        }
+        long number;
+        while ((number = block.next.getAndIncrement()) < block.end) {
+            String candidate = format(number);
+            if (store.get(candidate) == null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private boolean isReserved(long number) {
+        for (Block block : reserved) {
+            if (number >= block.first && number < block.end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Formats a number as a zero-padded 10-digit account number.
+     *
+     * @param number The number
+     * @return The account number
+     */
+    static String format(long number) {
+        String digits = Long.toString(number);
+        return "0000000000".substring(digits.length()) + digits;
+    }
+
+    /**
+     * A branch's reserved range [first, end) and its next unissued number.
+     */
+    private static final class Block {
+        private final String branch;
+        private final long first;
+        private final long end;
+        private final AtomicLong next;
+
+        private Block(String branch, long first, long end) {
+            this.branch = branch;
+            this.first = first;
+            this.end = end;
+            this.next = new AtomicLong(first);
+        }
+    }
+}
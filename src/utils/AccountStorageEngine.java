@@ -0,0 +1,45 @@
+package utils;
+
+import models.Account;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistence backend behind the {@link AccountStore} index.
+ * The store keeps every account in memory and tells the engine about each change;
+ * the engine decides how those changes reach disk.
+ */
+public interface AccountStorageEngine {
+    /**
+     * Loads every account from storage.
+     *
+     * @return All stored accounts
+     */
+    List<Account> loadAccounts();
+
+    /**
+     * Checks whether storage was modified by someone other than this engine since
+     * the last load, meaning the in-memory index must be reloaded.
+     *
+     * @return true if the accounts must be reloaded, false otherwise
+     */
+    boolean hasExternalChanges();
+
+    /**
+     * Persists a balance change already applied to the account object.
+     *
+     * @param account The account whose balance changed
+     * @param delta The signed amount that was applied
+     * @return Future completed once the change is durable under the durability mode
+     */
+    CompletableFuture<Long> balanceChanged(Account account, long delta);
+
+    /**
+     * Persists a new account or a change to an account's non-balance fields.
+     *
+     * @param account The account that was added or changed
+     * @return true if the account was saved, false otherwise
+     */
+    boolean accountSaved(Account account);
+}
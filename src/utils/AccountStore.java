@@ -0,0 +1,251 @@
+package utils;
+
+import models.Account;
+import models.Settings.AccountEngine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Authoritative in-memory index of all accounts, keyed by account number.
+ * Shared by every AccountService instance so lookups are O(1) and storage is
+ * only re-read when it has actually changed on disk.
+ * Persistence is delegated to an {@link AccountStorageEngine} chosen at startup
+ * from the settings: the text engine (accounts.txt plus a balance journal) or
+ * the memory-mapped binary table.
+ */
+public class AccountStore {
+    private static AccountStore instance;
+    private static final int LOCK_STRIPES = 256;
+
+    private final Map<String, Account> accounts = new LinkedHashMap<>();
+    private final Map<String, Account> index = new ConcurrentHashMap<>();
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+    private final AccountNumberAllocator numberAllocator = new AccountNumberAllocator(this);
+    private final AccountStorageEngine engine;
+    private volatile boolean loaded;
+    private final AtomicLong generation = new AtomicLong();
+    private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Private constructor for singleton pattern.
+     */
+    private AccountStore() {
+        engine = createEngine(FileHandler.readSettings().getAccountEngine());
+    }
+
+    /**
+     * Gets the process-wide account store.
+     *
+     * @return The AccountStore instance
+     */
+    public static synchronized AccountStore getInstance() {
+        if (instance == null) {
+            instance = new AccountStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the storage engine for the configured format. The first start on the
+     * mapped engine converts the current text accounts, including journaled changes;
+     * the first start back on the text engine exports the table again. If that export
+     * fails the table stays in use, since the text file is older than it.
+     */
+    private AccountStorageEngine createEngine(AccountEngine type) {
+        if (type == AccountEngine.MAPPED) {
+            File tableFile = FileHandler.getAccountsTableFile();
+            if (!tableFile.exists()) {
+                Map<String, Long> journaledBalances = new HashMap<>();
+                Map<String, Account> journaledAccounts = new LinkedHashMap<>();
+                new BalanceJournal(FileHandler.getAccountsJournalFile())
+                        .replay(FileHandler.readAccountsCheckpointSequence(), journaledBalances, journaledAccounts);
+                if (!MappedAccountTable.convertFromText(FileHandler.getAccountsFile(), journaledBalances,
+                        journaledAccounts, tableFile)) {
+                    System.err.println("Falling back to text account storage");
+                    return new TextAccountEngine(this, accounts::values);
+                }
+            }
+            return new MappedAccountTable(tableFile);
+        }
+        File tableFile = FileHandler.getAccountsTableFile();
+        if (tableFile.exists() && !MappedAccountTable.exportToText(tableFile)) {
+            System.err.println("Keeping mapped account storage until the table can be exported");
+            return new MappedAccountTable(tableFile);
+        }
+        return new TextAccountEngine(this, accounts::values);
+    }
+
+    /**
+     * Reloads the index from storage on first use, and afterwards only if the
+     * engine reports that storage was changed by someone else. The common
+     * unchanged case does not take the store lock.
+     */
+    public void refreshIfChanged() {
+        if (loaded && !engine.hasExternalChanges()) {
+            return;
+        }
+        reload();
+    }
+
+    private synchronized void reload() {
+        if (loaded && !engine.hasExternalChanges()) {
+            return;
+        }
+
+        accounts.clear();
+        for (Account account : engine.loadAccounts()) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        index.keySet().retainAll(accounts.keySet());
+        index.putAll(accounts);
+        loaded = true;
+        generation.incrementAndGet();
+        fireChanged(null);
+    }
+
+    /**
+     * Looks up an account by number without taking the store lock.
+     *
+     * @param accountNumber The account number
+     * @return Account object if found, null otherwise
+     */
+    public Account get(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        return index.get(accountNumber);
+    }
+
+    /**
+     * Adds a new account to the index. Call {@link #save(Account)} to persist it.
+     *
+     * @param account The account to add
+     */
+    public synchronized void put(Account account) {
+        accounts.put(account.getAccountNumber(), account);
+        index.put(account.getAccountNumber(), account);
+        generation.incrementAndGet();
+        fireChanged(account.getAccountNumber());
+    }
+
+    /**
+     * Adds a new account to the index unless its number is already taken.
+     * Call {@link #save(Account)} to persist it.
+     *
+     * @param account The account to add
+     * @return true if the account was added, false if the number is in use
+     */
+    public synchronized boolean putIfAbsent(Account account) {
+        if (index.containsKey(account.getAccountNumber())) {
+            return false;
+        }
+        put(account);
+        return true;
+    }
+
+    /**
+     * Removes an account that was added but could not be saved. Does nothing if the
+     * number now belongs to another account object, e.g. after a reload.
+     *
+     * @param account The account to remove
+     */
+    public synchronized void remove(Account account) {
+        if (accounts.remove(account.getAccountNumber(), account)) {
+            index.remove(account.getAccountNumber(), account);
+            generation.incrementAndGet();
+            fireChanged(account.getAccountNumber());
+        }
+    }
+
+    /**
+     * Records a balance change that was already applied to the account object.
+     * Does not take the store lock, so lock-free balance updates hand off to the
+     * engine directly. The returned handle should be awaited outside any lock so
+     * concurrent changes can share a group commit.
+     *
+     * @param account The account whose balance changed
+     * @param delta The signed amount that was applied, in minor units
+     * @return Future completed once the change is durable
+     */
+    public CompletableFuture<Long> recordBalanceChange(Account account, long delta) {
+        generation.incrementAndGet();
+        fireChanged(account.getAccountNumber());
+        return engine.balanceChanged(account, delta);
+    }
+
+    /**
+     * Persists a new account or a change to an account's non-balance fields,
+     * such as a PIN update. Must not be called while holding the store lock.
+     *
+     * @param account The account to persist
+     * @return true if the account was saved, false otherwise
+     */
+    public boolean save(Account account) {
+        generation.incrementAndGet();
+        fireChanged(account.getAccountNumber());
+        return engine.accountSaved(account);
+    }
+
+    /**
+     * Gets a snapshot of all accounts in file order.
+     *
+     * @return List of all accounts
+     */
+    public synchronized List<Account> getAll() {
+        return new ArrayList<>(accounts.values());
+    }
+
+    /**
+     * Gets the per-account lock stripes that guard balance and PIN changes.
+     *
+     * @return The shared lock table
+     */
+    public StripedLocks getLocks() {
+        return locks;
+    }
+
+    /**
+     * Gets the allocator that hands out unused account numbers.
+     *
+     * @return The shared account number allocator
+     */
+    public AccountNumberAllocator getNumberAllocator() {
+        return numberAllocator;
+    }
+
+    /**
+     * Registers a listener told about every change to the index. It receives the
+     * changed account number, or null when the whole index was reloaded from storage.
+     * Listeners run on the changing thread and must be cheap.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener(Consumer<String> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged(String accountNumber) {
+        for (Consumer<String> listener : changeListeners) {
+            listener.accept(accountNumber);
+        }
+    }
+
+    /**
+     * Gets the generation counter, which increases whenever the index is reloaded or modified.
+     *
+     * @return The current generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+}
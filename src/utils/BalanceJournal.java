@@ -0,0 +1,205 @@
+package utils;
+
+import models.Account;
+import models.Money;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only journal of account mutations.
+ * A balance change is one line: sequence|accountNumber|delta|newBalance, with amounts
+ * written as decimals. A new account or a change to its other fields, such as its PIN,
+ * is one line: sequence|account| followed by the whole account in accounts.txt format.
+ * Records are replayed on top of the last accounts.txt checkpoint at startup,
+ * so a change costs one small sequential append instead of a full rewrite.
+ * Appends go through a group-commit appender, so syncing follows the durability mode.
+ */
+public class BalanceJournal {
+    private static final String ACCOUNT_RECORD = "account";
+
+    private final File activeFile;
+    private final File sealedFile;
+    private GroupCommitAppender appender;
+    private long lastSequence;
+    private int recordsSinceCheckpoint;
+
+    /**
+     * Creates a journal backed by the given file.
+     *
+     * @param activeFile The journal file receiving new records
+     */
+    public BalanceJournal(File activeFile) {
+        this.activeFile = activeFile;
+        this.sealedFile = new File(activeFile.getPath() + ".old");
+    }
+
+    /**
+     * Appends a balance mutation to the journal. Sequence numbers are assigned in
+     * the same order records reach the file.
+     * The balance is read under the journal lock rather than taken from the caller,
+     * so when lock-free updates race, the last record for an account always holds
+     * a balance that includes every update journaled before it.
+     *
+     * @param account The account that changed
+     * @param delta The signed amount applied, in minor units
+     * @return Future completed once the record is committed under the durability mode
+     */
+    public synchronized CompletableFuture<Long> append(Account account, long delta) {
+        String accountNumber = account.getAccountNumber();
+        long newBalance = account.getBalance();
+        return write(accountNumber, Money.format(delta) + "|" + Money.format(newBalance));
+    }
+
+    /**
+     * Appends a whole account, for a new account or a change to fields other than
+     * its balance. Like {@link #append}, the account is read under the journal lock.
+     *
+     * @param account The account that was created or changed
+     * @return Future completed once the record is committed under the durability mode
+     */
+    public synchronized CompletableFuture<Long> appendAccount(Account account) {
+        return write(ACCOUNT_RECORD, account.toFileString());
+    }
+
+    private CompletableFuture<Long> write(String key, String payload) {
+        long sequence = ++lastSequence;
+        recordsSinceCheckpoint++;
+        String line = sequence + "|" + key + "|" + payload + "\n";
+        if (appender == null) {
+            appender = FileHandler.openAppender(activeFile, null);
+        }
+        return appender.append(line.getBytes(StandardCharsets.UTF_8), key);
+    }
+
+    /**
+     * Collects journaled changes newer than the checkpoint.
+     * The sealed journal left by an unfinished checkpoint is replayed first.
+     * An account record also sets its account's balance, so each balance is the
+     * one from the latest record of either kind.
+     *
+     * @param checkpointSequence The last sequence already contained in the checkpoint
+     * @param balances Map receiving the latest journaled balance per account number
+     * @param accounts Map receiving the latest journaled account per account number,
+     *                 in the order the accounts first appear
+     */
+    public synchronized void replay(long checkpointSequence, Map<String, Long> balances,
+                                    Map<String, Account> accounts) {
+        lastSequence = Math.max(lastSequence, checkpointSequence);
+        recordsSinceCheckpoint = 0;
+        replayFile(sealedFile, checkpointSequence, balances, accounts);
+        replayFile(activeFile, checkpointSequence, balances, accounts);
+    }
+
+    private void replayFile(File file, long checkpointSequence, Map<String, Long> balances,
+                            Map<String, Account> accounts) {
+        if (!file.exists()) {
+            return;
+        }
+        String content;
+        try {
+            content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Error replaying balance journal: " + e.getMessage());
+            return;
+        }
+
+        // Only newline-terminated records count; anything after the last newline is a torn append
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String line = content.substring(start, end);
+            start = end + 1;
+            String[] parts = line.split("\\|", 3);
+            if (parts.length != 3) {
+                continue;
+            }
+            try {
+                long sequence = Long.parseLong(parts[0]);
+                lastSequence = Math.max(lastSequence, sequence);
+                if (sequence <= checkpointSequence) {
+                    continue;
+                }
+                if (parts[1].equals(ACCOUNT_RECORD)) {
+                    Account account = Account.fromFileString(parts[2]);
+                    if (account == null) {
+                        throw new NumberFormatException("Malformed account");
+                    }
+                    accounts.put(account.getAccountNumber(), account);
+                    balances.put(account.getAccountNumber(), account.getBalance());
+                } else {
+                    String[] amounts = parts[2].split("\\|");
+                    if (amounts.length != 2) {
+                        continue;
+                    }
+                    balances.put(parts[1], Money.parse(amounts[1]));
+                }
+                recordsSinceCheckpoint++;
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping malformed journal record: " + line);
+            }
+        }
+    }
+
+    /**
+     * Seals the active journal so a checkpoint can be taken. New records go to a fresh
+     * active file; the sealed file is removed by {@link #discardSealed()} once the
+     * checkpoint covering it is safely on disk.
+     * The snapshot runs under the journal lock right before sealing, so no append can
+     * fall between them: every sealed record read a balance no newer than the
+     * snapshot, and every later record lands in the fresh file and is replayed.
+     *
+     * @param snapshot Captures the balances the checkpoint will write
+     * @return The last sequence number contained in the sealed journal
+     */
+    public synchronized long seal(Runnable snapshot) {
+        snapshot.run();
+        if (appender != null) {
+            FileHandler.closeAppender(appender); // Commits everything already queued
+            appender = null;
+        }
+        try {
+            if (activeFile.exists()) {
+                if (sealedFile.exists()) {
+                    // A previous checkpoint failed; keep its records ahead of ours
+                    Files.write(sealedFile.toPath(), Files.readAllBytes(activeFile.toPath()),
+                            StandardOpenOption.APPEND);
+                    Files.delete(activeFile.toPath());
+                } else {
+                    Files.move(activeFile.toPath(), sealedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error sealing balance journal: " + e.getMessage());
+        }
+        recordsSinceCheckpoint = 0;
+        return lastSequence;
+    }
+
+    /**
+     * Deletes the sealed journal after its records were checkpointed.
+     */
+    public synchronized void discardSealed() {
+        try {
+            Files.deleteIfExists(sealedFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Error discarding sealed journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the number of records appended since the last checkpoint.
+     *
+     * @return Pending record count
+     */
+    public synchronized int getRecordsSinceCheckpoint() {
+        return recordsSinceCheckpoint;
+    }
+
+}
@@ -0,0 +1,353 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only log segment stored as independently deflated blocks of whole records.
+ * A block index at the end of the file maps each block's uncompressed position to
+ * its place in the file, so reading a record decompresses only the block holding
+ * it, and a history query touching a few records never inflates the whole segment.
+ * <p>
+ * Layout: the zlib-wrapped blocks, then per block its uncompressed start (long),
+ * uncompressed length (int), file position (long) and compressed length (int),
+ * then the index position (long), the block count (int) and a magic number (int).
+ */
+final class CompressedSegment implements SegmentedLog.Reader {
+    private static final int MAGIC = 0x44534547; // "DSEG"
+    private static final int BLOCK_BYTES = 16 << 10;
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final int FOOTER_BYTES = 16;
+    private static final int CACHED_INDEXES = 64;
+    private static final AtomicLong decodedBytes = new AtomicLong();
+    private static final AtomicLong decodeNanos = new AtomicLong();
+    private static final Map<String, BlockIndex> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BlockIndex> eldest) {
+            return size() > CACHED_INDEXES;
+        }
+    };
+
+    private final FileChannel channel;
+    private final long[] starts;
+    private final int[] lengths;
+    private final long[] positions;
+    private final int[] compressedLengths;
+    private int cachedBlock = -1;
+    private byte[] cached;
+
+    private CompressedSegment(FileChannel channel, BlockIndex index) {
+        this.channel = channel;
+        this.starts = index.starts;
+        this.lengths = index.lengths;
+        this.positions = index.positions;
+        this.compressedLengths = index.compressedLengths;
+    }
+
+    /**
+     * Compresses the first bytes of a plain segment into blocks cut at record boundaries.
+     *
+     * @param source The plain segment
+     * @param length How many bytes of it belong to the segment
+     * @param target The compressed file to write
+     * @throws IOException if either file cannot be accessed or the source is shorter than length
+     */
+    static void write(File source, long length, File target) throws IOException {
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Deflater deflater = new Deflater();
+            ByteBuffer index = ByteBuffer.allocate(INDEX_ENTRY_BYTES * 64);
+            byte[] block = new byte[BLOCK_BYTES];
+            byte[] compressed = new byte[BLOCK_BYTES];
+            int filled = 0;
+            long read = 0;
+            long blockStart = 0;
+            int blocks = 0;
+            while (read < length || filled > 0) {
+                while (filled < block.length && read < length) {
+                    int n = in.read(ByteBuffer.wrap(block, filled, (int) Math.min(block.length - filled, length - read)), read);
+                    if (n <= 0) {
+                        throw new IOException("Segment is shorter than its manifest length: " + source);
+                    }
+                    filled += n;
+                    read += n;
+                }
+                int cut = filled;
+                if (read < length) {
+                    cut = lastNewline(block, filled) + 1;
+                    if (cut == 0) {
+                        block = Arrays.copyOf(block, block.length * 2); // One record longer than a block
+                        continue;
+                    }
+                }
+
+                deflater.reset();
+                deflater.setInput(block, 0, cut);
+                deflater.finish();
+                long position = out.position();
+                int written = 0;
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(compressed);
+                    out.write(ByteBuffer.wrap(compressed, 0, n));
+                    written += n;
+                }
+                if (index.remaining() < INDEX_ENTRY_BYTES) {
+                    index = ByteBuffer.allocate(index.capacity() * 2).put(index.flip());
+                }
+                index.putLong(blockStart).putInt(cut).putLong(position).putInt(written);
+                blocks++;
+
+                System.arraycopy(block, cut, block, 0, filled - cut);
+                filled -= cut;
+                blockStart += cut;
+            }
+            deflater.end();
+
+            long indexPosition = out.position();
+            index.flip();
+            while (index.hasRemaining()) {
+                out.write(index);
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES).putLong(indexPosition).putInt(blocks).putInt(MAGIC).flip();
+            while (footer.hasRemaining()) {
+                out.write(footer);
+            }
+            out.force(true);
+        }
+    }
+
+    /**
+     * Opens a compressed segment. Its block index is read once and then kept for the
+     * most recently used segments, since compressed files never change.
+     *
+     * @param file The compressed file
+     * @return The open segment; the caller closes it
+     * @throws IOException if the file cannot be read or is not a compressed segment
+     */
+    static CompressedSegment open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            BlockIndex index;
+            synchronized (indexes) {
+                index = indexes.get(file.getPath());
+            }
+            if (index == null || index.size != size) {
+                index = readIndex(channel, size, file);
+                synchronized (indexes) {
+                    indexes.put(file.getPath(), index);
+                }
+            }
+            return new CompressedSegment(channel, index);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+
+    private static BlockIndex readIndex(FileChannel channel, long size, File file) throws IOException {
+        ByteBuffer footer = readFully(channel, size - FOOTER_BYTES, FOOTER_BYTES);
+        long indexPosition = footer.getLong();
+        int blocks = footer.getInt();
+        if (footer.getInt() != MAGIC || indexPosition + (long) blocks * INDEX_ENTRY_BYTES != size - FOOTER_BYTES) {
+            throw new IOException("Not a compressed segment: " + file);
+        }
+        ByteBuffer entries = readFully(channel, indexPosition, blocks * INDEX_ENTRY_BYTES);
+        BlockIndex index = new BlockIndex(size, blocks);
+        for (int i = 0; i < blocks; i++) {
+            index.starts[i] = entries.getLong();
+            index.lengths[i] = entries.getInt();
+            index.positions[i] = entries.getLong();
+            index.compressedLengths[i] = entries.getInt();
+        }
+        return index;
+    }
+
+    /**
+     * Reads the newline-terminated record at a position, inflating only its block.
+     *
+     * @param position The uncompressed position of the record in the segment
+     * @return The record bytes without the newline, or null if no complete record exists there
+     * @throws IOException if the block cannot be read
+     */
+    @Override
+    public byte[] readRecord(long position) throws IOException {
+        int block = blockAt(position);
+        if (block < 0) {
+            return null;
+        }
+        byte[] bytes = decode(block);
+        int from = (int) (position - starts[block]);
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return Arrays.copyOfRange(bytes, from, i);
+            }
+        }
+        return null; // Blocks end on a record boundary, so only a torn segment gets here
+    }
+
+    /**
+     * Opens a stream over part of the segment that inflates one block at a time.
+     * Closing the stream closes the segment.
+     *
+     * @param position The uncompressed position to start at
+     * @param length How many bytes to read at most
+     * @return The stream
+     */
+    @Override
+    public InputStream stream(long position, long length) {
+        return new InputStream() {
+            private long next = position;
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] target, int offset, int count) throws IOException {
+                int block = blockAt(next);
+                if (remaining <= 0 || block < 0) {
+                    return -1;
+                }
+                byte[] bytes = decode(block);
+                int from = (int) (next - starts[block]);
+                int n = (int) Math.min(Math.min(count, bytes.length - from), remaining);
+                System.arraycopy(bytes, from, target, offset, n);
+                next += n;
+                remaining -= n;
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                CompressedSegment.this.close();
+            }
+        };
+    }
+
+    /**
+     * Closes the underlying file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Gets the number of bytes inflated by all compressed segments since startup.
+     *
+     * @return The decoded byte count
+     */
+    static long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    /**
+     * Gets the time spent inflating blocks since startup.
+     *
+     * @return The decode time in nanoseconds
+     */
+    static long getDecodeNanos() {
+        return decodeNanos.get();
+    }
+
+    private int blockAt(long position) {
+        int i = Arrays.binarySearch(starts, position);
+        i = i >= 0 ? i : -i - 2; // The block starting at or before the position
+        return i >= 0 && position < starts[i] + lengths[i] ? i : -1;
+    }
+
+    /**
+     * Inflates a block, reusing the last one when consecutive reads fall into it.
+     */
+    private byte[] decode(int block) throws IOException {
+        if (block == cachedBlock) {
+            return cached;
+        }
+        ByteBuffer compressed = readFully(channel, positions[block], compressedLengths[block]);
+        long started = System.nanoTime();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] bytes = new byte[lengths[block]];
+            int inflated = 0;
+            while (inflated < bytes.length && !inflater.finished()) {
+                int n = inflater.inflate(bytes, inflated, bytes.length - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != bytes.length) {
+                throw new IOException("Damaged compressed block " + block);
+            }
+            decodeNanos.addAndGet(System.nanoTime() - started);
+            decodedBytes.addAndGet(bytes.length);
+            cachedBlock = block;
+            cached = bytes;
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new IOException("Damaged compressed block " + block + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int lastNewline(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        if (position < 0) {
+            throw new IOException("Truncated compressed segment");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) <= 0) {
+                throw new IOException("Truncated compressed segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * The block index of one compressed file, columns by block.
+     */
+    private static final class BlockIndex {
+        private final long size;
+        private final long[] starts;
+        private final int[] lengths;
+        private final long[] positions;
+        private final int[] compressedLengths;
+
+        private BlockIndex(long size, int blocks) {
+            this.size = size;
+            this.starts = new long[blocks];
+            this.lengths = new int[blocks];
+            this.positions = new long[blocks];
+            this.compressedLengths = new int[blocks];
+        }
+    }
+}
@@ -3,23 +3,59 @@ package utils;
 import models.Account;
 import models.Transaction;
 import models.Settings;
+import models.Settings.DurabilityMode;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * Utility class for file operations.
  * Handles reading and writing of accounts, transactions, and settings.
  */
 public class FileHandler {
-    private static final String STORAGE_DIR = "storage";
+    private static final String STORAGE_DIR = System.getProperty("atm.storage.dir", "storage");
     private static final String ACCOUNTS_FILE = STORAGE_DIR + File.separator + "accounts.txt";
+    private static final String ACCOUNTS_TABLE_FILE = STORAGE_DIR + File.separator + "accounts.dat";
+    private static final String ACCOUNTS_JOURNAL_FILE = STORAGE_DIR + File.separator + "accounts.journal";
+    private static final String CHECKPOINT_HEADER = "#checkpoint|";
+    
+    private static TransactionIndex transactionIndex;
+    private static SegmentedLog transactionLog;
+    private static GroupCommitAppender transactionAppender;
+    private static long transactionAppenderBase;
+    private static final ReentrantReadWriteLock transactionLogLock = new ReentrantReadWriteLock();
+    private static ScheduledExecutorService logMaintenance;
+    private static final AtomicBoolean rollQueued = new AtomicBoolean();
+    private static long segmentMaxBytes = 64L << 20;
+    private static long segmentMaxAgeMillis = TimeUnit.DAYS.toMillis(1);
+    private static int hotSegments = 4;
+    private static final List<GroupCommitAppender> openAppenders = new ArrayList<>();
+    private static int groupCommitBatchSize = 256;
+    private static long groupCommitMaxWaitMicros = 0;
+    private static DurabilityMode durabilityMode;
     private static final String TRANSACTIONS_FILE = STORAGE_DIR + File.separator + "transactions.txt";
+    private static final String TRANSACTION_SEGMENTS_DIR = STORAGE_DIR + File.separator + "segments";
+    private static final String TRANSACTION_ARCHIVE_DIR = STORAGE_DIR + File.separator + "archive";
+    private static final String TRANSACTIONS_MANIFEST_FILE = STORAGE_DIR + File.separator + "transactions.manifest";
+    private static final long LOG_MAINTENANCE_INTERVAL_SECONDS = 60;
+    private static final String LEDGER_CHECKPOINT_FILE = STORAGE_DIR + File.separator + "ledger.ckpt";
     private static final String SETTINGS_FILE = STORAGE_DIR + File.separator + "settings.txt";
+    private static final long PARALLEL_LOAD_MIN_BYTES = 4L << 20;
     
     /**
      * Ensures the storage directory exists.
@@ -35,6 +71,35 @@ public class FileHandler {
         }
     }
     
+    /**
+     * Gets the accounts file, used by callers that track its modification stamp.
+     * 
+     * @return The accounts file
+     */
+    public static File getAccountsFile() {
+        return new File(ACCOUNTS_FILE);
+    }
+    
+    /**
+     * Gets the memory-mapped binary account table used by the MAPPED account engine.
+     * 
+     * @return The accounts table file
+     */
+    public static File getAccountsTableFile() {
+        ensureStorageDirectory();
+        return new File(ACCOUNTS_TABLE_FILE);
+    }
+    
+    /**
+     * Gets the balance journal file that records mutations since the last checkpoint.
+     * 
+     * @return The accounts journal file
+     */
+    public static File getAccountsJournalFile() {
+        ensureStorageDirectory();
+        return new File(ACCOUNTS_JOURNAL_FILE);
+    }
+    
     /**
      * Reads all accounts from the accounts file.
      * 
@@ -49,19 +114,23 @@ public class FileHandler {
             return accounts;
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        int malformed = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
+                if (!line.trim().isEmpty() && !line.startsWith("#")) {
                     Account account = Account.fromFileString(line);
                     if (account != null) {
                         accounts.add(account);
+                    } else {
+                        malformed++;
                     }
                 }
             }
         } catch (IOException e) {
             System.err.println("Error reading accounts: " + e.getMessage());
         }
+        reportMalformed(malformed, "account");
         
         return accounts;
     }
@@ -73,7 +142,7 @@ public class FileHandler {
      */
     public static void writeAccounts(List<Account> accounts) {
         ensureStorageDirectory();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ACCOUNTS_FILE))) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(ACCOUNTS_FILE, StandardCharsets.UTF_8))) {
             for (Account account : accounts) {
                 writer.write(account.toFileString());
                 writer.newLine();
@@ -84,66 +153,507 @@ public class FileHandler {
     }
     
     /**
-     * Reads all transactions from the transactions file.
+     * Reads the journal sequence number covered by the accounts file checkpoint.
      * 
-     * @return List of Transaction objects
+     * @return The checkpoint sequence, or 0 if the file has no checkpoint header
      */
-    public static List<Transaction> readTransactions() {
-        ensureStorageDirectory();
-        List<Transaction> transactions = new ArrayList<>();
-        File file = new File(TRANSACTIONS_FILE);
-        
+    public static long readAccountsCheckpointSequence() {
+        File file = new File(ACCOUNTS_FILE);
         if (!file.exists()) {
-            return transactions;
+            return 0;
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    Transaction transaction = Transaction.fromFileString(line);
-                    if (transaction != null) {
-                        transactions.add(transaction);
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith(CHECKPOINT_HEADER)) {
+                return Long.parseLong(line.substring(CHECKPOINT_HEADER.length()).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading accounts checkpoint: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * Writes an accounts checkpoint covering the journal up to the given sequence.
+     * The file is written to a temporary file and atomically moved into place so a
+     * crash mid-write never leaves a truncated accounts file. Unless durability is
+     * RELAXED, the temporary file is synced before the move.
+     * 
+     * @param accountLines Account records in file format
+     * @param checkpointSequence The last journal sequence reflected in the records
+     * @return true if the checkpoint was written, false otherwise
+     */
+    public static boolean writeAccountsCheckpoint(List<String> accountLines, long checkpointSequence) {
+        ensureStorageDirectory();
+        File tempFile = new File(ACCOUNTS_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(CHECKPOINT_HEADER + checkpointSequence);
+            writer.newLine();
+            for (String line : accountLines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            if (getDurabilityMode() != DurabilityMode.RELAXED) {
+                out.getFD().sync();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing accounts checkpoint: " + e.getMessage());
+            return false;
+        }
+        
+        try {
+            Files.move(tempFile.toPath(), Paths.get(ACCOUNTS_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing accounts file: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Reads all transactions from every segment of the transactions log.
+     * Plain segments of at least {@value #PARALLEL_LOAD_MIN_BYTES} bytes are memory-mapped and
+     * parsed in chunks on all cores; smaller and compressed segments are read line by line. Any failure
+     * of the parallel path falls back to {@link #readTransactionsSequentially()}.
+     * 
+     * @return List of Transaction objects in log order
+     */
+    public static List<Transaction> readTransactions() {
+        ensureStorageDirectory();
+        if (ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            return readTransactionsSequentially();
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        LongAdder malformed = new LongAdder();
+        Function<CharSequence, Transaction> parser = line -> {
+            Transaction transaction = Transaction.fromFileString(line);
+            if (transaction == null) {
+                malformed.increment();
+            }
+            return transaction;
+        };
+        try {
+            for (SegmentedLog.Segment segment : getTransactionLog().segments()) {
+                long length = segment.getLength();
+                if (length >= PARALLEL_LOAD_MIN_BYTES && segment.getTier() != SegmentedLog.Tier.COMPRESSED) {
+                    transactions.addAll(ParallelLineReader.read(segment.getFile().toPath(),
+                            segment.isActive() ? Long.MAX_VALUE : length, parser));
+                } else if (length > 0) {
+                    try (InputStream in = getTransactionLog().openRange(segment.getBase(),
+                            segment.isActive() ? Long.MAX_VALUE : segment.getEnd())) {
+                        malformed.add(readLines(in, transactions));
                     }
                 }
             }
+            reportMalformed(malformed.intValue(), "transaction");
+            return transactions;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading transactions in parallel, reading sequentially: " + e.getMessage());
+        }
+        return readTransactionsSequentially();
+    }
+    
+    /**
+     * Reads all transactions from every segment of the log line by line on the calling thread.
+     * 
+     * @return List of Transaction objects in log order
+     */
+    public static List<Transaction> readTransactionsSequentially() {
+        ensureStorageDirectory();
+        List<Transaction> transactions = new ArrayList<>();
+        try (InputStream in = getTransactionLog().openFrom(0)) {
+            reportMalformed(readLines(in, transactions), "transaction");
         } catch (IOException e) {
             System.err.println("Error reading transactions: " + e.getMessage());
         }
-        
         return transactions;
     }
     
     /**
-     * Writes all transactions to the transactions file.
+     * Parses the transaction lines of a stream.
+     * 
+     * @param in The stream, positioned at the start of a line
+     * @param transactions The list parsed transactions are added to
+     * @return The number of malformed lines skipped
+     * @throws IOException if the stream cannot be read
+     */
+    private static int readLines(InputStream in, List<Transaction> transactions) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int malformed = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.trim().isEmpty()) {
+                Transaction transaction = Transaction.fromFileString(line);
+                if (transaction != null) {
+                    transactions.add(transaction);
+                } else {
+                    malformed++;
+                }
+            }
+        }
+        return malformed;
+    }
+    
+    /**
+     * Reports the malformed lines one read skipped, once for the whole read.
+     * 
+     * @param malformed The number of lines skipped
+     * @param record What the lines should have held, e.g. "transaction"
+     */
+    static void reportMalformed(int malformed, String record) {
+        if (malformed > 0) {
+            System.err.println("Error parsing " + record + "s: skipped " + malformed + " malformed line(s)");
+        }
+    }
+    
+    /**
+     * Gets the per-account offset index over the transactions file.
+     * 
+     * @return The shared TransactionIndex
+     */
+    public static synchronized TransactionIndex getTransactionIndex() {
+        if (transactionIndex == null) {
+            ensureStorageDirectory();
+            transactionIndex = TransactionIndex.open(getTransactionLog(), new File(LEDGER_CHECKPOINT_FILE));
+        }
+        return transactionIndex;
+    }
+    
+    /**
+     * Gets the segmented transactions log, starting its maintenance thread on first use.
+     * The thread seals the active segment once it is older than the configured age,
+     * merges small sealed segments and, if enabled, compresses the older ones.
+     * 
+     * @return The shared SegmentedLog
+     */
+    public static synchronized SegmentedLog getTransactionLog() {
+        if (transactionLog == null) {
+            ensureStorageDirectory();
+            transactionLog = new SegmentedLog(new File(TRANSACTIONS_FILE), new File(TRANSACTION_SEGMENTS_DIR),
+                    new File(TRANSACTION_ARCHIVE_DIR), new File(TRANSACTIONS_MANIFEST_FILE));
+            logMaintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "log-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            logMaintenance.scheduleWithFixedDelay(FileHandler::maintainTransactionLog,
+                    LOG_MAINTENANCE_INTERVAL_SECONDS, LOG_MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+        return transactionLog;
+    }
+    
+    /**
+     * Configures when the active transactions segment is sealed and how many sealed
+     * segments stay in the hot directory.
+     * 
+     * @param maxBytes Size at which the active segment is sealed
+     * @param maxAgeMillis Age at which a non-empty active segment is sealed
+     * @param hotSegmentCount Sealed segments kept plain; older ones are compressed into the
+     *                        archive. 0 never archives
+     */
+    public static synchronized void configureLogSegments(long maxBytes, long maxAgeMillis, int hotSegmentCount) {
+        segmentMaxBytes = maxBytes;
+        segmentMaxAgeMillis = maxAgeMillis;
+        hotSegments = hotSegmentCount;
+    }
+    
+    /**
+     * Seals the active transactions segment. Appends wait while the appender is
+     * drained and reopened on a fresh active file.
+     * 
+     * @return true if a segment was sealed
+     */
+    public static boolean rollTransactionLog() {
+        transactionLogLock.writeLock().lock();
+        try {
+            synchronized (FileHandler.class) {
+                if (transactionAppender != null) {
+                    closeAppender(transactionAppender); // Every queued record is written and indexed first
+                    transactionAppender = null;
+                }
+                return getTransactionLog().roll();
+            }
+        } finally {
+            transactionLogLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Runs one pass of log maintenance: a time-based roll, merging, then archiving.
+     * A pass that archived segments reports the compression ratio and decode throughput.
+     */
+    private static void maintainTransactionLog() {
+        long maxBytes;
+        long maxAge;
+        int hot;
+        synchronized (FileHandler.class) {
+            maxBytes = segmentMaxBytes;
+            maxAge = segmentMaxAgeMillis;
+            hot = hotSegments;
+        }
+        SegmentedLog log = getTransactionLog();
+        if (log.activeAgeMillis() >= maxAge) {
+            rollTransactionLog();
+        }
+        log.compact(maxBytes);
+        if (hot > 0 && log.archive(hot) > 0) {
+            System.out.println(String.format("Archived transaction log segments: compression ratio %.2f, "
+                    + "decode throughput %.1f MB/s", log.getCompressionRatio(), log.getDecodeThroughput()));
+        }
+    }
+    
+    /**
+     * Schedules a roll on the maintenance thread unless one is already queued.
+     * Called from the appender's writer thread, which a roll has to wait for.
+     */
+    private static void requestRoll() {
+        if (rollQueued.compareAndSet(false, true)) {
+            logMaintenance.execute(() -> {
+                rollQueued.set(false);
+                rollTransactionLog();
+            });
+        }
+    }
+    
+    /**
+     * Gets the durability mode storage writes follow, loading it from settings on first use.
+     * 
+     * @return The active durability mode
+     */
+    public static synchronized DurabilityMode getDurabilityMode() {
+        if (durabilityMode == null) {
+            durabilityMode = readSettings().getDurabilityMode();
+        }
+        return durabilityMode;
+    }
+    
+    /**
+     * Switches the durability mode and applies it to every open appender.
+     * 
+     * @param mode The new durability mode
+     */
+    public static synchronized void setDurabilityMode(DurabilityMode mode) {
+        durabilityMode = mode;
+        reconfigureAppenders();
+    }
+    
+    /**
+     * Configures the group commit window used in GROUP durability mode.
+     * 
+     * @param batchSize Maximum number of records written per group commit
+     * @param maxWaitMicros How long to wait for more records before committing a partial batch
+     */
+    public static synchronized void configureGroupCommit(int batchSize, long maxWaitMicros) {
+        groupCommitBatchSize = batchSize;
+        groupCommitMaxWaitMicros = maxWaitMicros;
+        reconfigureAppenders();
+    }
+    
+    /**
+     * Opens a group-commit appender whose batching and syncing follow the durability mode.
+     * STRICT commits and syncs every record on its own, GROUP syncs once per batch,
+     * RELAXED batches without syncing.
+     * 
+     * @param file The file to append to
+     * @param listener Optional callback for each written record, may be null
+     * @return The new appender
+     */
+    public static synchronized GroupCommitAppender openAppender(File file, GroupCommitAppender.RecordListener listener) {
+        ensureStorageDirectory();
+        GroupCommitAppender appender = GroupCommitAppender.open(file.toPath(), 1, 0, false, listener);
+        openAppenders.add(appender);
+        configure(appender);
+        return appender;
+    }
+    
+    /**
+     * Commits pending records of an appender opened by {@link #openAppender} and closes it.
+     * 
+     * @param appender The appender to close
+     */
+    public static void closeAppender(GroupCommitAppender appender) {
+        synchronized (FileHandler.class) {
+            openAppenders.remove(appender);
+        }
+        appender.close();
+    }
+    
+    private static void reconfigureAppenders() {
+        for (GroupCommitAppender appender : openAppenders) {
+            configure(appender);
+        }
+    }
+    
+    private static void configure(GroupCommitAppender appender) {
+        switch (getDurabilityMode()) {
+            case STRICT:
+                appender.configure(1, 0, true);
+                break;
+            case GROUP:
+                appender.configure(groupCommitBatchSize, groupCommitMaxWaitMicros, true);
+                break;
+            default:
+                appender.configure(groupCommitBatchSize, groupCommitMaxWaitMicros, false);
+                break;
+        }
+    }
+    
+    /**
+     * Gets the long-lived appender for the active transactions segment, creating it on
+     * first use. Its records are indexed at their logical offsets, and a record that
+     * takes the segment past the size limit queues a roll.
+     */
+    private static synchronized GroupCommitAppender getTransactionAppender() {
+        if (transactionAppender == null) {
+            SegmentedLog log = getTransactionLog();
+            TransactionIndex index = getTransactionIndex();
+            long base = log.getActiveBase();
+            long maxBytes = segmentMaxBytes;
+            transactionAppenderBase = base;
+            transactionAppender = openAppender(log.getActiveFile(), (key, offset, length) -> {
+                index.add(key, base + offset, length);
+                if (offset + length >= maxBytes) {
+                    requestRoll();
+                }
+            });
+        }
+        return transactionAppender;
+    }
+    
+    /**
+     * Writes all transactions as a new log, replacing every segment.
+     * Pending appends are committed first, and the offset index is rebuilt
+     * afterwards since every record may have moved.
      * 
      * @param transactions List of Transaction objects to write
      */
     public static void writeTransactions(List<Transaction> transactions) {
         ensureStorageDirectory();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(TRANSACTIONS_FILE))) {
-            for (Transaction transaction : transactions) {
-                writer.write(transaction.toFileString());
-                writer.newLine();
+        transactionLogLock.writeLock().lock();
+        try {
+            synchronized (FileHandler.class) {
+                if (transactionAppender != null) {
+                    closeAppender(transactionAppender);
+                    transactionAppender = null;
+                }
+                getTransactionLog().reset();
+                try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(TRANSACTIONS_FILE), StandardCharsets.UTF_8))) {
+                    for (Transaction transaction : transactions) {
+                        writer.write(transaction.toFileString());
+                        writer.newLine();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error writing transactions: " + e.getMessage());
+                }
+                getTransactionIndex().rebuild();
             }
-        } catch (IOException e) {
-            System.err.println("Error writing transactions: " + e.getMessage());
+        } finally {
+            transactionLogLock.writeLock().unlock();
         }
     }
     
     /**
-     * Appends a single transaction to the transactions file.
+     * Appends a single transaction to the active segment through the group-commit
+     * appender. Its offset is indexed before the returned future completes.
      * 
      * @param transaction The transaction to append
+     * @return Future completed with the record's logical offset once it is written
      */
-    public static void appendTransaction(Transaction transaction) {
-        ensureStorageDirectory();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(TRANSACTIONS_FILE, true))) {
-            writer.write(transaction.toFileString());
-            writer.newLine();
+    public static CompletableFuture<Long> appendTransaction(Transaction transaction) {
+        byte[] record = (transaction.toFileString() + "\n").getBytes(StandardCharsets.UTF_8);
+        CompletableFuture<Long> written;
+        long base;
+        transactionLogLock.readLock().lock(); // Keeps a roll from closing the appender between the two steps
+        try {
+            synchronized (FileHandler.class) {
+                written = getTransactionAppender().append(record, transaction.getAccountNumber());
+                base = transactionAppenderBase;
+            }
+        } finally {
+            transactionLogLock.readLock().unlock();
+        }
+        return written
+                .thenApply(offset -> base + offset)
+                .whenComplete((offset, error) -> {
+                    if (error != null) {
+                        System.err.println("Error appending transaction: " + error.getMessage());
+                    }
+                });
+    }
+    
+    /**
+     * Reads the complete records in the last part of the transactions log.
+     * Only the newest segments that overlap that part are opened.
+     * 
+     * @param maxBytes How many bytes from the end of the log to read at most
+     * @return List of Transaction objects in log order
+     */
+    public static List<Transaction> readTransactionsTail(long maxBytes) {
+        List<Transaction> transactions = new ArrayList<>();
+        SegmentedLog log = getTransactionLog();
+        long start = Math.max(0, log.length() - maxBytes);
+        // Starting one byte early makes the first line either the cut end of a record or,
+        // when start is a record boundary, the empty line before it; both are skipped
+        long from = Math.max(0, start - 1);
+        byte[] tail;
+        try (InputStream in = log.openFrom(from)) {
+            tail = in.readNBytes((int) Math.min(maxBytes + (start - from), Integer.MAX_VALUE - 8));
         } catch (IOException e) {
-            System.err.println("Error appending transaction: " + e.getMessage());
+            System.err.println("Error reading transactions: " + e.getMessage());
+            return transactions;
         }
+        String[] lines = new String(tail, StandardCharsets.UTF_8).split("\n");
+        int malformed = 0;
+        for (int i = start > 0 ? 1 : 0; i < lines.length; i++) {
+            if (!lines[i].trim().isEmpty()) {
+                Transaction transaction = Transaction.fromFileString(lines[i]);
+                if (transaction != null) {
+                    transactions.add(transaction);
+                } else {
+                    malformed++;
+                }
+            }
+        }
+        reportMalformed(malformed, "transaction");
+        return transactions;
+    }
+    
+    /**
+     * Reads the transactions stored at the given logical offsets using positioned reads,
+     * opening each segment that holds one of them once.
+     * 
+     * @param offsets Logical offsets of the records, ascending, as produced by the TransactionIndex
+     * @return List of Transaction objects in offset order
+     */
+    public static List<Transaction> readTransactionsAt(long[] offsets) {
+        List<Transaction> transactions = new ArrayList<>(offsets.length);
+        if (offsets.length == 0) {
+            return transactions;
+        }
+        
+        int malformed = 0;
+        try {
+            for (byte[] record : getTransactionLog().readRecords(offsets)) {
+                if (record != null) {
+                    Transaction transaction = Transaction.fromFileString(
+                            new String(record, StandardCharsets.UTF_8).trim());
+                    if (transaction != null) {
+                        transactions.add(transaction);
+                    } else {
+                        malformed++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading transactions: " + e.getMessage());
+        }
+        reportMalformed(malformed, "transaction");
+        return transactions;
     }
     
     /**
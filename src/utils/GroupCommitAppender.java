@@ -0,0 +1,236 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived appender that batches records from concurrent callers into group commits.
+ * A single writer thread drains queued records, writes each batch with one call on a
+ * shared FileChannel and optionally forces it to disk once per batch. Every caller
+ * gets a future that completes with the record's byte offset once the batch is written.
+ */
+public class GroupCommitAppender {
+    /**
+     * Callback invoked on the writer thread for each record, before its future completes.
+     */
+    public interface RecordListener {
+        void recordWritten(String key, long offset, int length);
+    }
+
+    private static final PendingRecord CLOSE = new PendingRecord(null, null);
+
+    private final Path file;
+    private final RecordListener listener;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private Thread writer;
+    private FileChannel channel;
+    private volatile int maxBatchSize;
+    private volatile long maxWaitMicros;
+    private volatile boolean forceOnCommit;
+    private volatile boolean closed;
+
+    private GroupCommitAppender(Path file, RecordListener listener) {
+        this.file = file;
+        this.listener = listener;
+    }
+
+    /**
+     * Creates an appender and starts its writer thread. The thread is started only
+     * once the appender is fully constructed.
+     *
+     * @param file The file to append to
+     * @param maxBatchSize Maximum number of records written per group commit
+     * @param maxWaitMicros How long the writer lingers for more records before committing a partial batch
+     * @param forceOnCommit Whether each batch is forced to the storage device
+     * @param listener Optional callback for each written record, may be null
+     * @return The running appender
+     */
+    public static GroupCommitAppender open(Path file, int maxBatchSize, long maxWaitMicros,
+                                           boolean forceOnCommit, RecordListener listener) {
+        GroupCommitAppender appender = new GroupCommitAppender(file, listener);
+        appender.configure(maxBatchSize, maxWaitMicros, forceOnCommit);
+        appender.writer = new Thread(appender::run, "group-commit-" + file.getFileName());
+        appender.writer.setDaemon(true);
+        appender.writer.start(); // Publishes the appender to the writer thread
+        return appender;
+    }
+
+    /**
+     * Changes the batching window. Takes effect from the next batch.
+     *
+     * @param maxBatchSize Maximum number of records written per group commit
+     * @param maxWaitMicros How long to linger for more records, 0 to commit whatever is queued
+     * @param forceOnCommit Whether each batch is forced to the storage device
+     */
+    public void configure(int maxBatchSize, long maxWaitMicros, boolean forceOnCommit) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitMicros = Math.max(0, maxWaitMicros);
+        this.forceOnCommit = forceOnCommit;
+    }
+
+    /**
+     * Queues a record for the next group commit.
+     *
+     * @param record The bytes to append, including any line terminator
+     * @param key Caller-defined key passed to the listener, may be null
+     * @return Future completed with the record's offset once it is written
+     */
+    public CompletableFuture<Long> append(byte[] record, String key) {
+        PendingRecord pending = new PendingRecord(record, key);
+        if (closed) {
+            pending.future.completeExceptionally(new IOException("Appender is closed: " + file));
+            return pending.future;
+        }
+        queue.add(pending);
+        if (closed && !writer.isAlive()) {
+            failRemaining(); // Lost the race with close(); nobody will drain the queue
+        }
+        return pending.future;
+    }
+
+    /**
+     * Commits everything already queued, then stops the writer and closes the file.
+     */
+    public void close() {
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<PendingRecord> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.clear();
+                PendingRecord first = queue.take();
+                if (first == CLOSE) {
+                    break;
+                }
+                batch.add(first);
+                int limit = maxBatchSize;
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+                while (batch.size() < limit) {
+                    PendingRecord next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                    }
+                    if (next == CLOSE) {
+                        running = false;
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        failRemaining();
+        closeChannel();
+    }
+
+    /**
+     * Writes one batch with a single write call and completes its futures.
+     */
+    private void commit(List<PendingRecord> batch) {
+        int total = 0;
+        for (PendingRecord pending : batch) {
+            total += pending.record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (PendingRecord pending : batch) {
+            buffer.put(pending.record);
+        }
+        buffer.flip();
+
+        long start;
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            start = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (forceOnCommit) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Error committing batch to " + file + ": " + e.getMessage());
+            for (PendingRecord pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            closeChannel();
+            return;
+        }
+
+        long offset = start;
+        for (PendingRecord pending : batch) {
+            if (listener != null) {
+                try {
+                    listener.recordWritten(pending.key, offset, pending.record.length);
+                } catch (RuntimeException e) {
+                    System.err.println("Error in append listener: " + e.getMessage());
+                }
+            }
+            pending.future.complete(offset);
+            offset += pending.record.length;
+        }
+    }
+
+    private void failRemaining() {
+        PendingRecord pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending != CLOSE) {
+                pending.future.completeExceptionally(new IOException("Appender is closed: " + file));
+            }
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing " + file + ": " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * A queued record and the future its caller is waiting on.
+     */
+    private static class PendingRecord {
+        final byte[] record;
+        final String key;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        PendingRecord(byte[] record, String key) {
+            this.record = record;
+            this.key = key;
+        }
+    }
+}
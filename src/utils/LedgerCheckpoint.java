@@ -0,0 +1,198 @@
+package utils;
+
+import models.Settings.DurabilityMode;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of the state derived from the transactions log: the per-account
+ * record offsets and the transaction ID generator's position. It is tagged with the
+ * log length it covers and a checksum of the log bytes just before that point, so a
+ * log that was rewritten since is detected and the snapshot discarded. On startup
+ * the snapshot is memory-mapped and only the log beyond it is scanned.
+ * <p>
+ * Layout, big-endian: magic, version, covered length, tail checksum, ID generator
+ * state, account count, then per account its UTF-8 number and its offsets, and
+ * finally a CRC32 of everything before it.
+ */
+public class LedgerCheckpoint {
+    private static final int MAGIC = 0x4C434B50; // "LCKP"
+    private static final int VERSION = 1;
+    private static final int TAIL_CHECK_BYTES = 4096;
+
+    private final long coveredLength;
+    private final long tailChecksum;
+    private final long idState;
+    private final Map<String, long[]> offsets;
+
+    /**
+     * Creates a checkpoint.
+     *
+     * @param coveredLength The log length the snapshot reflects
+     * @param tailChecksum The checksum of the log bytes before coveredLength
+     * @param idState The transaction ID generator's position
+     * @param offsets Each account's record offsets, oldest first
+     */
+    public LedgerCheckpoint(long coveredLength, long tailChecksum, long idState, Map<String, long[]> offsets) {
+        this.coveredLength = coveredLength;
+        this.tailChecksum = tailChecksum;
+        this.idState = idState;
+        this.offsets = offsets;
+    }
+
+    // Getters
+    public long getCoveredLength() {
+        return coveredLength;
+    }
+
+    public long getIdState() {
+        return idState;
+    }
+
+    public Map<String, long[]> getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Checks that the log still starts with the bytes this checkpoint covers.
+     *
+     * @param log The transactions log
+     * @return true if the checkpoint can be used with the log
+     */
+    public boolean matches(SegmentedLog log) {
+        return tailChecksum >= 0 && log.length() >= coveredLength
+                && tailChecksum(log, coveredLength) == tailChecksum;
+    }
+
+    /**
+     * Computes the checksum of the last few kilobytes of a log before a position.
+     *
+     * @param log The transactions log
+     * @param length The position the checked bytes end at
+     * @return The checksum, or -1 if the bytes cannot be read
+     */
+    public static long tailChecksum(SegmentedLog log, long length) {
+        if (length == 0) {
+            return 0;
+        }
+        long start = Math.max(0, length - TAIL_CHECK_BYTES);
+        byte[] bytes;
+        try (InputStream in = log.openFrom(start)) {
+            bytes = in.readNBytes((int) (length - start));
+        } catch (IOException e) {
+            return -1;
+        }
+        if (bytes.length < length - start) {
+            return -1; // The log is shorter than the position
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the checkpoint through a temporary file and an atomic rename, so a crash
+     * mid-write leaves the previous checkpoint in place. Unless durability is RELAXED,
+     * the temporary file is synced before the rename.
+     *
+     * @param file The checkpoint file
+     * @return true if the checkpoint was written, false otherwise
+     */
+    public boolean write(File file) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(out, 1 << 16), new CRC32());
+            DataOutputStream data = new DataOutputStream(checked);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(coveredLength);
+            data.writeLong(tailChecksum);
+            data.writeLong(idState);
+            data.writeInt(offsets.size());
+            for (Map.Entry<String, long[]> entry : offsets.entrySet()) {
+                byte[] accountNumber = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                data.writeInt(accountNumber.length);
+                data.write(accountNumber);
+                data.writeInt(entry.getValue().length);
+                for (long offset : entry.getValue()) {
+                    data.writeLong(offset);
+                }
+            }
+            data.flush();
+            data.writeLong(checked.getChecksum().getValue());
+            data.flush();
+            if (FileHandler.getDurabilityMode() != DurabilityMode.RELAXED) {
+                out.getFD().sync();
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing ledger checkpoint: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing ledger checkpoint: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Maps and decodes a checkpoint file.
+     *
+     * @param file The checkpoint file
+     * @return The checkpoint, or null if the file is missing, damaged or of another version
+     */
+    public static LedgerCheckpoint read(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 44 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - Long.BYTES));
+            if (buffer.getLong((int) size - Long.BYTES) != crc.getValue()
+                    || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long coveredLength = buffer.getLong();
+            long tailChecksum = buffer.getLong();
+            long idState = buffer.getLong();
+            int accounts = buffer.getInt();
+            Map<String, long[]> offsets = new HashMap<>(accounts * 2);
+            for (int i = 0; i < accounts; i++) {
+                byte[] accountNumber = new byte[buffer.getInt()];
+                buffer.get(accountNumber);
+                long[] values = new long[buffer.getInt()];
+                buffer.asLongBuffer().get(values);
+                buffer.position(buffer.position() + values.length * Long.BYTES);
+                offsets.put(new String(accountNumber, StandardCharsets.UTF_8), values);
+            }
+            return new LedgerCheckpoint(coveredLength, tailChecksum, idState, offsets);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading ledger checkpoint, rebuilding: " + e.getMessage());
+            return null;
+        }
+    }
+}
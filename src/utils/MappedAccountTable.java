@@ -0,0 +1,443 @@
+package utils;
+
+import models.Account;
+import models.Settings.DurabilityMode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Account storage as a memory-mapped table of fixed-width binary slots.
+ * Each slot holds the account number, name, PIN hash, balance and creation time
+ * at fixed offsets, so a balance update is an in-place write of 8 bytes and loading
+ * needs no text parsing. An in-memory index maps account numbers to slots.
+ *
+ * Layout: a 64-byte header (magic, version, slot size, slot count) followed by
+ * 256-byte slots. Strings are stored as a length byte followed by UTF-8 bytes and the
+ * balance as a long in minor units.
+ */
+public class MappedAccountTable implements AccountStorageEngine {
+    private static final int MAGIC = 0x41544D41; // "ATMA"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 256;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int HEADER_SLOT_COUNT = 12;
+    private static final int ACCOUNT_NUMBER_OFFSET = 0;
+    private static final int ACCOUNT_NUMBER_LENGTH = 16;
+    private static final int NAME_OFFSET = 16;
+    private static final int NAME_LENGTH = Account.MAX_NAME_BYTES + 1;
+    private static final int PIN_OFFSET = 144;
+    private static final int PIN_LENGTH = 72;
+    private static final int BALANCE_OFFSET = 216;
+    private static final int CREATED_SECONDS_OFFSET = 224;
+    private static final int CREATED_NANOS_OFFSET = 232;
+
+    private final File file;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotCount;
+    private int capacity;
+
+    private final ExecutorService flusher;
+    private boolean flushQueued;
+    private List<CompletableFuture<Long>> pendingFlush = new ArrayList<>();
+    private List<Long> pendingPositions = new ArrayList<>();
+
+    /**
+     * Opens (or creates) the mapped table.
+     *
+     * @param file The binary table file
+     */
+    public MappedAccountTable(File file) {
+        this.file = file;
+        flusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-table-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Streams a text accounts file into a new mapped table, one line at a time.
+     * Journaled changes that were not yet checkpointed into the text file are applied:
+     * newer versions of accounts replace their lines, accounts created since are added.
+     *
+     * @param textFile The pipe-delimited accounts file
+     * @param journaledBalances Balances from the text engine's journal, by account number
+     * @param journaledAccounts Accounts from the text engine's journal, by account number
+     * @param tableFile The table file to create
+     * @return true if the conversion succeeded, false otherwise
+     */
+    public static boolean convertFromText(File textFile, Map<String, Long> journaledBalances,
+                                          Map<String, Account> journaledAccounts, File tableFile) {
+        Map<String, Account> unwritten = new LinkedHashMap<>(journaledAccounts);
+        File tempFile = new File(tableFile.getPath() + ".tmp");
+        try {
+            Files.deleteIfExists(tempFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Error preparing account table conversion: " + e.getMessage());
+            return false;
+        }
+
+        MappedAccountTable table = new MappedAccountTable(tempFile);
+        try {
+            table.open();
+            int malformed = 0;
+            if (textFile.exists()) {
+                try (BufferedReader reader = new BufferedReader(new FileReader(textFile, StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.trim().isEmpty() || line.startsWith("#")) {
+                            continue;
+                        }
+                        Account account = Account.fromFileString(line);
+                        if (account != null) {
+                            Account newer = unwritten.remove(account.getAccountNumber());
+                            writeConverted(table, newer != null ? newer : account, journaledBalances);
+                        } else {
+                            malformed++;
+                        }
+                    }
+                }
+            }
+            for (Account account : unwritten.values()) {
+                writeConverted(table, account, journaledBalances); // Created since the checkpoint
+            }
+            FileHandler.reportMalformed(malformed, "account");
+            table.buffer.force();
+        } catch (IOException e) {
+            System.err.println("Error converting accounts to table: " + e.getMessage());
+            table.close();
+            return false;
+        }
+        table.close();
+
+        try {
+            Files.move(tempFile.toPath(), tableFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error installing account table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void writeConverted(MappedAccountTable table, Account account,
+                                       Map<String, Long> journaledBalances) throws IOException {
+        Long balance = journaledBalances.get(account.getAccountNumber());
+        if (balance != null) {
+            account.setBalance(balance);
+        }
+        table.writeSlot(account);
+    }
+
+    /**
+     * Writes a table back to the text accounts file as a checkpoint covering the whole
+     * balance journal, then deletes the table, so switching back to the text engine
+     * keeps everything stored while on the table and a later switch converts afresh.
+     *
+     * @param tableFile The table file to export
+     * @return true if the accounts file now holds the table's accounts and the table is gone
+     */
+    public static boolean exportToText(File tableFile) {
+        MappedAccountTable table = new MappedAccountTable(tableFile);
+        List<String> lines = new ArrayList<>();
+        try {
+            table.open();
+            for (int slot = 0; slot < table.slotCount; slot++) {
+                lines.add(table.readSlot(slot).toFileString());
+            }
+        } catch (IOException e) {
+            System.err.println("Error exporting account table: " + e.getMessage());
+            return false;
+        } finally {
+            table.close();
+        }
+
+        // Journal records predate the table and are already in it; the checkpoint covers them all
+        BalanceJournal journal = new BalanceJournal(FileHandler.getAccountsJournalFile());
+        journal.replay(FileHandler.readAccountsCheckpointSequence(), new HashMap<>(), new HashMap<>());
+        long sequence = journal.seal(() -> { });
+        if (!FileHandler.writeAccountsCheckpoint(lines, sequence)) {
+            return false;
+        }
+        journal.discardSealed();
+        try {
+            Files.delete(tableFile.toPath());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error removing exported account table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads every slot into Account objects and builds the slot index.
+     *
+     * @return All stored accounts
+     */
+    @Override
+    public synchronized List<Account> loadAccounts() {
+        List<Account> accounts = new ArrayList<>();
+        try {
+            open();
+        } catch (IOException e) {
+            System.err.println("Error opening account table: " + e.getMessage());
+            return accounts;
+        }
+
+        slots.clear();
+        for (int slot = 0; slot < slotCount; slot++) {
+            Account account = readSlot(slot);
+            slots.put(account.getAccountNumber(), slot);
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    private Account readSlot(int slot) {
+        int base = slotBase(slot);
+        Account account = new Account();
+        account.setAccountNumber(readString(base + ACCOUNT_NUMBER_OFFSET, ACCOUNT_NUMBER_LENGTH));
+        account.setName(readString(base + NAME_OFFSET, NAME_LENGTH));
+        account.setHashedPin(readString(base + PIN_OFFSET, PIN_LENGTH));
+        account.setBalance(buffer.getLong(base + BALANCE_OFFSET));
+        account.setCreationDate(LocalDateTime.ofEpochSecond(buffer.getLong(base + CREATED_SECONDS_OFFSET),
+                buffer.getInt(base + CREATED_NANOS_OFFSET), ZoneOffset.UTC));
+        return account;
+    }
+
+    /**
+     * The table is owned by this process, so there are no external changes to detect.
+     */
+    @Override
+    public boolean hasExternalChanges() {
+        return false;
+    }
+
+    /**
+     * Writes the account's current balance in place; reading it under the table lock
+     * keeps the slot current when lock-free updates race. STRICT forces the slot immediately, GROUP
+     * completes the future after the next flush by the flush thread, which covers
+     * every change made while the previous flush was running. RELAXED completes at once.
+     */
+    @Override
+    public CompletableFuture<Long> balanceChanged(Account account, long delta) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        long position;
+        synchronized (this) {
+            Integer slot = slots.get(account.getAccountNumber());
+            if (slot == null) {
+                done.completeExceptionally(new IOException("No table slot for " + account.getAccountNumber()));
+                return done;
+            }
+            int base = slotBase(slot);
+            position = base + BALANCE_OFFSET;
+            buffer.putLong(base + BALANCE_OFFSET, account.getBalance());
+
+            DurabilityMode mode = FileHandler.getDurabilityMode();
+            if (mode == DurabilityMode.STRICT) {
+                buffer.force(base, SLOT_SIZE);
+            } else if (mode == DurabilityMode.GROUP) {
+                pendingFlush.add(done);
+                pendingPositions.add(position);
+                if (!flushQueued) {
+                    flushQueued = true;
+                    flusher.execute(this::flushPending);
+                }
+                return done;
+            }
+        }
+        done.complete(position);
+        return done;
+    }
+
+    /**
+     * Writes the whole slot for the account, allocating a new slot if needed.
+     */
+    @Override
+    public synchronized boolean accountSaved(Account account) {
+        try {
+            writeSlot(account);
+            if (FileHandler.getDurabilityMode() != DurabilityMode.RELAXED) {
+                buffer.force();
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving account to table: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes the whole slot for the account.
+     *
+     * @throws IOException if the table cannot be opened or grown, or a field does not fit
+     *                     its slot; nothing is written then
+     */
+    private void writeSlot(Account account) throws IOException {
+        checkFits("account number", account.getAccountNumber(), ACCOUNT_NUMBER_LENGTH);
+        checkFits("name", account.getName(), NAME_LENGTH);
+        checkFits("PIN hash", account.getHashedPin(), PIN_LENGTH);
+        open();
+        Integer slot = slots.get(account.getAccountNumber());
+        if (slot == null) {
+            if (slotCount == capacity) {
+                grow();
+            }
+            slot = slotCount++;
+            buffer.putInt(HEADER_SLOT_COUNT, slotCount);
+            slots.put(account.getAccountNumber(), slot);
+        }
+
+        int base = slotBase(slot);
+        writeString(base + ACCOUNT_NUMBER_OFFSET, ACCOUNT_NUMBER_LENGTH, account.getAccountNumber());
+        writeString(base + NAME_OFFSET, NAME_LENGTH, account.getName());
+        writeString(base + PIN_OFFSET, PIN_LENGTH, account.getHashedPin());
+        buffer.putLong(base + BALANCE_OFFSET, account.getBalance());
+        buffer.putLong(base + CREATED_SECONDS_OFFSET, account.getCreationDate().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(base + CREATED_NANOS_OFFSET, account.getCreationDate().getNano());
+    }
+
+    /**
+     * Forces the mapping to disk, then stops the flush thread and unmaps the file.
+     */
+    public synchronized void close() {
+        flusher.shutdown();
+        if (buffer != null) {
+            buffer.force();
+        }
+        completePending();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing account table: " + e.getMessage());
+        }
+        channel = null;
+        buffer = null;
+    }
+
+    private void flushPending() {
+        MappedByteBuffer mapped;
+        List<CompletableFuture<Long>> flushed;
+        List<Long> positions;
+        synchronized (this) {
+            flushQueued = false;
+            mapped = buffer;
+            if (pendingFlush.isEmpty() || mapped == null) {
+                return;
+            }
+            // Changes that land during force() queue another flush rather than joining this one
+            flushed = pendingFlush;
+            positions = pendingPositions;
+            pendingFlush = new ArrayList<>();
+            pendingPositions = new ArrayList<>();
+        }
+        mapped.force();
+        for (int i = 0; i < flushed.size(); i++) {
+            flushed.get(i).complete(positions.get(i));
+        }
+    }
+
+    private void completePending() {
+        List<CompletableFuture<Long>> flushed = pendingFlush;
+        List<Long> positions = pendingPositions;
+        pendingFlush = new ArrayList<>();
+        pendingPositions = new ArrayList<>();
+        for (int i = 0; i < flushed.size(); i++) {
+            flushed.get(i).complete(positions.get(i));
+        }
+    }
+
+    /**
+     * Maps the file, writing a fresh header if it is new.
+     */
+    private void open() throws IOException {
+        if (buffer != null) {
+            return;
+        }
+        boolean created = !file.exists() || file.length() < HEADER_SIZE;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (created) {
+            map(INITIAL_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, SLOT_SIZE);
+            buffer.putInt(HEADER_SLOT_COUNT, 0);
+            slotCount = 0;
+            return;
+        }
+
+        int existingCapacity = (int) ((channel.size() - HEADER_SIZE) / SLOT_SIZE);
+        map(Math.max(existingCapacity, 1));
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != SLOT_SIZE) {
+            throw new IOException("Unrecognized account table format: " + file);
+        }
+        slotCount = buffer.getInt(HEADER_SLOT_COUNT);
+    }
+
+    private void grow() throws IOException {
+        buffer.force();
+        map(capacity * 2);
+    }
+
+    private void map(int slots) throws IOException {
+        capacity = slots;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int slotBase(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private String readString(int offset, int maxLength) {
+        int length = buffer.get(offset) & 0xFF;
+        byte[] bytes = new byte[Math.min(length, maxLength - 1)];
+        buffer.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void checkFits(String field, String value, int maxLength) throws IOException {
+        if (value != null && value.getBytes(StandardCharsets.UTF_8).length > maxLength - 1) {
+            throw new IOException("Account " + field + " longer than " + (maxLength - 1) + " bytes");
+        }
+    }
+
+    /**
+     * Writes a length-prefixed string; callers check with {@link #checkFits} that it fits first.
+     */
+    private void writeString(int offset, int maxLength, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        buffer.put(offset, (byte) bytes.length);
+        buffer.put(offset + 1, bytes);
+        for (int i = offset + 1 + bytes.length; i < offset + maxLength; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+}
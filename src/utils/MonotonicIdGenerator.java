@@ -0,0 +1,137 @@
+package utils;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free generator of time-ordered 64-bit IDs in the style of Snowflake.
+ * An ID packs 41 bits of milliseconds since 2024-01-01 UTC, a 10-bit node number
+ * identifying the terminal or server, and a 12-bit sequence within the millisecond.
+ * IDs from one generator are strictly increasing: a clock that steps back or more
+ * than 4096 IDs in one millisecond borrow from the next millisecond instead of waiting.
+ * The text form is 13 Crockford base32 characters, so string order matches issue order.
+ */
+public class MonotonicIdGenerator {
+    private static final String NODE_PROPERTY = "atm.node.id";
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static MonotonicIdGenerator instance;
+
+    private final long node;
+    private final AtomicLong lastStamp = new AtomicLong(); // timestamp << SEQUENCE_BITS | sequence
+
+    /**
+     * Creates a generator for a node.
+     *
+     * @param node The node number, 0 to 1023
+     * @throws IllegalArgumentException if the node number is out of range
+     */
+    public MonotonicIdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+    }
+
+    /**
+     * Gets the process-wide generator. Its node number comes from the
+     * {@code atm.node.id} system property; each terminal or server writing to the
+     * same files needs its own. Without a valid one a random node is drawn, which
+     * can collide with another process's, so a warning is logged.
+     *
+     * @return The MonotonicIdGenerator instance
+     */
+    public static synchronized MonotonicIdGenerator getInstance() {
+        if (instance == null) {
+            instance = new MonotonicIdGenerator(configuredNode());
+        }
+        return instance;
+    }
+
+    private static int configuredNode() {
+        String configured = System.getProperty(NODE_PROPERTY);
+        if (configured != null) {
+            try {
+                int node = Integer.parseInt(configured.trim());
+                if (node >= 0 && node <= MAX_NODE) {
+                    return node;
+                }
+                System.err.println("Error reading " + NODE_PROPERTY + ": must be between 0 and " + MAX_NODE);
+            } catch (NumberFormatException e) {
+                System.err.println("Error reading " + NODE_PROPERTY + ": " + e.getMessage());
+            }
+        }
+        int node = new SecureRandom().nextInt((int) MAX_NODE + 1);
+        System.err.println("Warning: no valid " + NODE_PROPERTY + " set, using random node " + node
+                + "; IDs may collide with another process writing the same files");
+        return node;
+    }
+
+    /**
+     * Issues the next ID.
+     *
+     * @return A new ID, greater than every ID this generator issued before
+     */
+    public long nextId() {
+        while (true) {
+            long previous = lastStamp.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long next = now > (previous >>> SEQUENCE_BITS)
+                    ? now << SEQUENCE_BITS
+                    : previous + 1; // Same or earlier millisecond; a full sequence carries into the next one
+            if (lastStamp.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * Issues the next ID in its sortable text form.
+     *
+     * @return A 13-character ID
+     */
+    public String nextIdString() {
+        return encode(nextId());
+    }
+
+    /**
+     * Gets the generator's position, for saving in a checkpoint.
+     *
+     * @return The timestamp and sequence of the last issued ID
+     */
+    public long getState() {
+        return lastStamp.get();
+    }
+
+    /**
+     * Moves the generator past a position saved earlier, so IDs issued after a
+     * restart sort after the saved ones even if the clock stepped back meanwhile.
+     *
+     * @param state A value returned by {@link #getState()}
+     */
+    public void restoreState(long state) {
+        lastStamp.accumulateAndGet(state, Math::max);
+    }
+
+    /**
+     * Encodes an ID as fixed-width Crockford base32.
+     *
+     * @param id The ID
+     * @return The 13-character text form
+     */
+    public static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,216 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Reads a newline-separated file on all cores.
+ * The file is cut into byte ranges whose boundaries are moved forward to the next
+ * newline, each range is memory-mapped and parsed as a task on the common
+ * fork-join pool, and the results are joined back in file order. Lines are decoded
+ * as UTF-8; blank lines and lines the parser rejects with null are skipped.
+ * Each chunk decodes its ASCII lines into one reused character buffer, so a line
+ * costs no String of its own; the parser must copy whatever it keeps.
+ */
+final class ParallelLineReader {
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 64L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Private constructor; this class only has static helpers.
+     */
+    private ParallelLineReader() {
+    }
+
+    /**
+     * Parses every line in the first bytes of a file.
+     *
+     * @param file     The file to read
+     * @param maxBytes How many bytes from the start to read at most, Long.MAX_VALUE for all
+     * @param parser   Turns one line, without its terminator, into a record or null; the
+     *                 line is only valid during the call
+     * @param <T>      The record type
+     * @return The records in file order
+     * @throws IOException if the file cannot be read
+     */
+    static <T> List<T> read(Path file, long maxBytes, Function<CharSequence, T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = Math.min(maxBytes, channel.size()); // Bytes appended from here on are left for the next load
+            long[] bounds = chunkBounds(channel, size);
+            List<Chunk> chunks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                if (bounds[i] < bounds[i + 1]) {
+                    chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY,
+                            bounds[i], bounds[i + 1] - bounds[i])));
+                }
+            }
+
+            List<List<T>> parsed = chunks.parallelStream() // Ordered: results keep chunk order
+                    .map(chunk -> chunk.parse(parser))
+                    .toList();
+            int total = 0;
+            for (List<T> part : parsed) {
+                total += part.size();
+            }
+            List<T> records = new ArrayList<>(total);
+            for (List<T> part : parsed) {
+                records.addAll(part);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Splits the file into about {@value #CHUNKS_PER_THREAD} chunks per pool thread,
+     * each starting right after a newline.
+     *
+     * @param channel The open file
+     * @param size    The number of bytes to cover
+     * @return Ascending chunk boundaries, starting at 0 and ending at size
+     * @throws IOException if the file cannot be read
+     */
+    private static long[] chunkBounds(FileChannel channel, long size) throws IOException {
+        int target = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+        long chunkBytes = Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, size / Math.max(1, target)));
+        int count = (int) ((size + chunkBytes - 1) / chunkBytes);
+        long[] bounds = new long[Math.max(count, 1) + 1];
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < bounds.length - 1; i++) {
+            long nominal = Math.max(i * chunkBytes, bounds[i - 1]);
+            bounds[i] = nextLineStart(channel, nominal, size, probe);
+        }
+        bounds[bounds.length - 1] = size;
+        return bounds;
+    }
+
+    /**
+     * Finds the first line that starts at or after a position.
+     *
+     * @param channel  The open file
+     * @param position The nominal boundary, greater than 0
+     * @param size     The number of bytes to cover
+     * @param probe    Scratch buffer for the scan
+     * @return The offset just past the next newline at or after position - 1, or size if none
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe)
+            throws IOException {
+        long scan = position - 1; // A newline right before the position already ends a line there
+        while (scan < size) {
+            probe.clear();
+            int read = channel.read(probe, scan);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read && scan + i < size; i++) {
+                if (probe.get(i) == '\n') {
+                    return scan + i + 1;
+                }
+            }
+            scan += read;
+        }
+        return size;
+    }
+
+    /**
+     * One mapped range of whole lines.
+     */
+    private static final class Chunk {
+        private final MappedByteBuffer buffer;
+
+        private Chunk(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private <T> List<T> parse(Function<CharSequence, T> parser) {
+            List<T> records = new ArrayList<>();
+            LineBuffer line = new LineBuffer(); // Reused for every line of the chunk
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = start;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int length = end - start;
+                if (length > 0 && buffer.get(end - 1) == '\r') {
+                    length--;
+                }
+                CharSequence text = line.fill(buffer, start, length);
+                if (text != null) {
+                    T record = parser.apply(text);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+                start = end + 1;
+            }
+            return records;
+        }
+    }
+
+    /**
+     * A growable character buffer holding one line at a time. Copies made from it,
+     * through subSequence or toString, are plain Strings.
+     */
+    private static final class LineBuffer implements CharSequence {
+        private char[] chars = new char[256];
+        private int length;
+
+        /**
+         * Loads a line. ASCII, which is what the storage files almost always hold, is
+         * widened byte by byte into the buffer; any other line is decoded into a String.
+         *
+         * @return The line, or null if it is blank
+         */
+        CharSequence fill(ByteBuffer source, int start, int count) {
+            if (count > chars.length) {
+                chars = new char[Math.max(count, chars.length * 2)];
+            }
+            boolean blank = true;
+            for (int i = 0; i < count; i++) {
+                byte b = source.get(start + i);
+                if (b < 0) {
+                    byte[] bytes = new byte[count];
+                    source.get(start, bytes);
+                    String decoded = new String(bytes, StandardCharsets.UTF_8);
+                    return decoded.isBlank() ? null : decoded;
+                }
+                blank &= b <= ' ';
+                chars[i] = (char) b;
+            }
+            length = count;
+            return blank ? null : this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
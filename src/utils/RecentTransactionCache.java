@@ -0,0 +1,173 @@
+package utils;
+
+import models.Transaction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded in-memory cache of each account's most recent transactions.
+ * Every account gets a fixed-size ring of its last N records, so reading a mini
+ * statement costs O(N) however long the history is. Rings are kept for at most
+ * a fixed number of accounts; the least recently used account is evicted first,
+ * which caps memory at roughly accounts x N records.
+ */
+public class RecentTransactionCache {
+    private final int capacity;
+    private final Map<String, Ring> rings;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity    The number of recent records kept per account
+     * @param maxAccounts The number of accounts kept before the least recently used is evicted
+     */
+    public RecentTransactionCache(int capacity, int maxAccounts) {
+        this.capacity = capacity;
+        this.rings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ring> eldest) {
+                return size() > maxAccounts;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of records kept per account.
+     *
+     * @return The ring capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Records a newly written transaction. Accounts without a ring are skipped;
+     * their ring is filled from the log the first time it is read.
+     *
+     * @param transaction The transaction that was written
+     */
+    public synchronized void add(Transaction transaction) {
+        Ring ring = rings.get(transaction.getAccountNumber());
+        if (ring != null) {
+            ring.add(transaction);
+        }
+    }
+
+    /**
+     * Feeds a record read from the tail of the log at startup, creating the ring if needed.
+     * A ring that fills up this way holds the account's true last N records.
+     *
+     * @param transaction The transaction, in log order
+     */
+    public synchronized void warm(Transaction transaction) {
+        rings.computeIfAbsent(transaction.getAccountNumber(), account -> new Ring(capacity, false))
+                .add(transaction);
+    }
+
+    /**
+     * Gets an account's most recent transactions, newest first. A missing or partial
+     * ring is filled from storage outside the cache lock; records written meanwhile
+     * are caught by a placeholder ring and merged in.
+     *
+     * @param accountNumber The account number
+     * @param limit         The maximum number of records, at most {@link #getCapacity()}
+     * @param loader        Reads the given number of the account's latest records from
+     *                      storage, oldest first
+     * @return The records, newest first
+     */
+    public List<Transaction> latest(String accountNumber, int limit, IntFunction<List<Transaction>> loader) {
+        Ring pending;
+        synchronized (this) {
+            Ring ring = rings.get(accountNumber);
+            if (ring != null && ring.complete) {
+                return ring.newestFirst(limit);
+            }
+            if (ring == null) {
+                ring = new Ring(capacity, false);
+                rings.put(accountNumber, ring);
+            }
+            pending = ring;
+        }
+
+        List<Transaction> loaded = loader.apply(capacity);
+        synchronized (this) {
+            Ring filled = new Ring(capacity, true);
+            for (Transaction transaction : loaded) {
+                filled.add(transaction);
+            }
+            for (Transaction transaction : pending.oldestFirst()) {
+                filled.add(transaction); // Skips records the loader already returned
+            }
+            if (rings.get(accountNumber) == pending) {
+                rings.put(accountNumber, filled);
+            }
+            return filled.newestFirst(limit);
+        }
+    }
+
+    /**
+     * Discards every ring, e.g. after the log was rewritten.
+     */
+    public synchronized void clear() {
+        rings.clear();
+    }
+
+    /**
+     * Fixed-size circular buffer of one account's records in log order.
+     */
+    private static final class Ring {
+        private final Transaction[] records;
+        private int next;
+        private int size;
+        private boolean complete;
+
+        private Ring(int capacity, boolean complete) {
+            this.records = new Transaction[capacity];
+            this.complete = complete;
+        }
+
+        private void add(Transaction transaction) {
+            if (contains(transaction.getTransactionId())) {
+                return; // Already read back from the log by a concurrent fill
+            }
+            records[next] = transaction;
+            next = (next + 1) % records.length;
+            if (size < records.length) {
+                size++;
+            }
+            if (size == records.length) {
+                complete = true; // A full ring of the newest records is the true last N
+            }
+        }
+
+        private boolean contains(String transactionId) {
+            for (int i = 0; i < size; i++) {
+                if (records[i].getTransactionId().equals(transactionId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<Transaction> oldestFirst() {
+            List<Transaction> result = new ArrayList<>(size);
+            for (int i = size; i >= 1; i--) {
+                result.add(records[(next - i + records.length) % records.length]);
+            }
+            return result;
+        }
+
+        private List<Transaction> newestFirst(int limit) {
+            int count = Math.min(limit, size);
+            List<Transaction> result = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                result.add(records[(next - i + records.length) % records.length]);
+            }
+            return result;
+        }
+    }
+}
@@ -3,7 +3,6 @@ package utils;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.util.Base64;
 
 /**
  * Utility class for security operations including PIN hashing.
@@ -11,6 +10,7 @@ import java.util.Base64;
  */
 public class SecurityUtils {
     private static final String ALGORITHM = "SHA-256";
+    private static final SecureRandom RANDOM = new SecureRandom(); // Thread-safe; seeding one per call is slow
     
     /**
      * Hashes a PIN using SHA-256 algorithm.
@@ -53,15 +53,13 @@ public class SecurityUtils {
     }
     
     /**
-     * Generates a random transaction ID.
+     * Generates a time-ordered transaction ID.
+     * IDs issued by this process sort in the order they were issued.
      * 
-     * @return A random transaction ID string
+     * @return A 13-character transaction ID string
      */
     public static String generateTransactionId() {
-        SecureRandom random = new SecureRandom();
-        byte[] bytes = new byte[16];
-        random.nextBytes(bytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        return MonotonicIdGenerator.getInstance().nextIdString();
     }
     
     /**
@@ -70,10 +68,9 @@ public class SecurityUtils {
      * @return A random 10-digit account number
      */
     public static String generateAccountNumber() {
-        SecureRandom random = new SecureRandom();
-        StringBuilder accountNumber = new StringBuilder();
+        StringBuilder accountNumber = new StringBuilder(10);
         for (int i = 0; i < 10; i++) {
-            accountNumber.append(random.nextInt(10));
+            accountNumber.append(RANDOM.nextInt(10));
         }
         return accountNumber.toString();
     }
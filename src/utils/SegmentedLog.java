@@ -0,0 +1,791 @@
+package utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Append-only log split into segments that together form one contiguous byte range.
+ * New records go to the active file; when it grows too large or too old it is sealed:
+ * renamed into the segments directory, made read-only and listed in the manifest.
+ * Offsets are logical positions in the whole log, so a record keeps its offset when
+ * its segment is sealed, merged with neighbours or moved to the archive directory,
+ * and readers never need to know which file holds it.
+ * <p>
+ * The manifest holds one "active|base" line for the active file and one
+ * "segment|base|length|tier" line per sealed segment, oldest first.
+ */
+public class SegmentedLog {
+    /**
+     * Where and how a sealed segment is kept: plain in the segments directory, or
+     * block-compressed in the archive directory.
+     */
+    public enum Tier {
+        HOT, COMPRESSED
+    }
+
+    /**
+     * Reads records and ranges out of one segment file, whatever its format.
+     */
+    interface Reader extends Closeable {
+        /**
+         * Reads the newline-terminated record at a position in the segment.
+         *
+         * @param position The position of the record in the segment
+         * @return The record bytes without the newline, or null if no complete record exists there
+         * @throws IOException if the segment cannot be read
+         */
+        byte[] readRecord(long position) throws IOException;
+
+        /**
+         * Opens a stream over part of the segment. Closing the stream closes the reader.
+         *
+         * @param position The position to start at
+         * @param length How many bytes to read at most, Long.MAX_VALUE for all
+         * @return The stream
+         * @throws IOException if the segment cannot be read
+         */
+        InputStream stream(long position, long length) throws IOException;
+    }
+
+    /**
+     * One file of the log. The active file has a length of -1 because it still grows.
+     */
+    public static final class Segment {
+        private final File file;
+        private final long base;
+        private final long length;
+        private final Tier tier;
+
+        private Segment(File file, long base, long length, Tier tier) {
+            this.file = file;
+            this.base = base;
+            this.length = length;
+            this.tier = tier;
+        }
+
+        // Getters
+        public File getFile() {
+            return file;
+        }
+
+        public long getBase() {
+            return base;
+        }
+
+        public Tier getTier() {
+            return tier;
+        }
+
+        /**
+         * Gets the number of bytes of the log this segment holds.
+         *
+         * @return The length, or the current file length for the active file
+         */
+        public long getLength() {
+            return isActive() ? file.length() : length;
+        }
+
+        /**
+         * Checks whether this is the active file.
+         *
+         * @return true if the segment still takes appends
+         */
+        public boolean isActive() {
+            return length < 0;
+        }
+
+        /**
+         * Gets the logical offset just past this segment's records.
+         *
+         * @return The end offset, or Long.MAX_VALUE for the active file
+         */
+        public long getEnd() {
+            return isActive() ? Long.MAX_VALUE : base + length;
+        }
+    }
+
+    private final File activeFile;
+    private final File segmentDir;
+    private final File archiveDir;
+    private final File manifestFile;
+    private final Object maintenanceLock = new Object();
+    private List<Segment> sealed = new ArrayList<>();
+    private long resets;
+    private long activeBase;
+    private long activeCreated;
+    private long manifestStamp = Long.MIN_VALUE;
+
+    /**
+     * Opens the log described by a manifest. A log without a manifest is a single
+     * active file starting at offset 0.
+     *
+     * @param activeFile The file taking appends
+     * @param segmentDir The directory sealed segments are kept in
+     * @param archiveDir The directory archived segments are moved to
+     * @param manifestFile The manifest file
+     */
+    public SegmentedLog(File activeFile, File segmentDir, File archiveDir, File manifestFile) {
+        this.activeFile = activeFile;
+        this.segmentDir = segmentDir;
+        this.archiveDir = archiveDir;
+        this.manifestFile = manifestFile;
+        refreshIfChanged();
+    }
+
+    /**
+     * Gets the file taking appends.
+     *
+     * @return The active file
+     */
+    public File getActiveFile() {
+        return activeFile;
+    }
+
+    /**
+     * Gets the logical offset of the first byte of the active file.
+     *
+     * @return The active file's base offset
+     */
+    public synchronized long getActiveBase() {
+        refreshIfChanged();
+        return activeBase;
+    }
+
+    /**
+     * Gets the logical length of the whole log.
+     *
+     * @return The offset the next appended record will get
+     */
+    public synchronized long length() {
+        refreshIfChanged();
+        return activeBase + activeFile.length();
+    }
+
+    /**
+     * Gets the segments in log order, the active file last.
+     *
+     * @return A snapshot of the segments
+     */
+    public synchronized List<Segment> segments() {
+        refreshIfChanged();
+        List<Segment> all = new ArrayList<>(sealed);
+        all.add(new Segment(activeFile, activeBase, -1, Tier.HOT));
+        return all;
+    }
+
+    /**
+     * Gets the sealed segments in log order.
+     *
+     * @return A snapshot of the sealed segments
+     */
+    public synchronized List<Segment> sealedSegments() {
+        refreshIfChanged();
+        return new ArrayList<>(sealed);
+    }
+
+    /**
+     * Opens a stream over the log from a logical offset to the current end.
+     * Only the segments at or after the offset are opened.
+     *
+     * @param offset The logical offset to start at
+     * @return The stream; the caller closes it
+     * @throws IOException if a segment cannot be opened
+     */
+    public InputStream openFrom(long offset) throws IOException {
+        return openRange(offset, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens a stream over a logical range of the log. Only the segments overlapping
+     * the range are opened.
+     *
+     * @param from The logical offset to start at
+     * @param to The logical offset to stop at, Long.MAX_VALUE for the current end
+     * @return The stream; the caller closes it
+     * @throws IOException if a segment cannot be opened
+     */
+    public InputStream openRange(long from, long to) throws IOException {
+        List<InputStream> streams = new ArrayList<>();
+        try {
+            for (Segment segment : segments()) {
+                if (segment.getEnd() <= from || segment.base >= to
+                        || (segment.isActive() && !segment.file.exists())) {
+                    continue;
+                }
+                long start = Math.max(0, from - segment.base);
+                long end = Math.min(segment.getEnd(), to);
+                streams.add(open(segment).stream(start, end == Long.MAX_VALUE ? end : end - segment.base - start));
+            }
+        } catch (IOException e) {
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+            throw e;
+        }
+        Enumeration<InputStream> parts = Collections.enumeration(streams);
+        return new SequenceInputStream(parts);
+    }
+
+    /**
+     * Reads newline-terminated records at logical offsets, opening each segment once.
+     *
+     * @param offsets Logical offsets of the records, ascending
+     * @return The record bytes without the newline, null where no complete record exists
+     * @throws IOException if a segment cannot be read
+     */
+    public List<byte[]> readRecords(long[] offsets) throws IOException {
+        List<byte[]> records = new ArrayList<>(offsets.length);
+        List<Segment> segments = segments();
+        int next = 0;
+        for (Segment segment : segments) {
+            if (next == offsets.length) {
+                break;
+            }
+            if (offsets[next] >= segment.getEnd() || (segment.isActive() && !segment.file.exists())) {
+                continue;
+            }
+            try (Reader reader = open(segment)) {
+                while (next < offsets.length && offsets[next] < segment.getEnd()) {
+                    records.add(offsets[next] < segment.base ? null
+                            : reader.readRecord(offsets[next] - segment.base));
+                    next++;
+                }
+            }
+        }
+        while (records.size() < offsets.length) {
+            records.add(null);
+        }
+        return records;
+    }
+
+    /**
+     * Seals the active file as the newest segment. Must not run while records are
+     * being appended to it.
+     *
+     * @return true if a segment was sealed, false if the active file was empty or sealing failed
+     */
+    public synchronized boolean roll() {
+        refreshIfChanged();
+        long length = activeFile.length();
+        if (length == 0) {
+            return false;
+        }
+        File target = segmentFile(segmentDir, activeBase, Tier.HOT);
+        try {
+            Files.createDirectories(segmentDir.toPath());
+            Files.move(activeFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error sealing log segment: " + e.getMessage());
+            return false;
+        }
+        target.setReadOnly();
+        List<Segment> updated = new ArrayList<>(sealed);
+        updated.add(new Segment(target, activeBase, length, Tier.HOT));
+        writeManifest(updated, activeBase + length); // A crash before this is repaired on load
+        return true;
+    }
+
+    /**
+     * Gets how long ago the active file received its first record after the last roll.
+     *
+     * @return The age in milliseconds, or 0 if the active file is empty
+     */
+    public synchronized long activeAgeMillis() {
+        if (activeFile.length() == 0) {
+            activeCreated = 0;
+            return 0;
+        }
+        if (activeCreated == 0) {
+            activeCreated = System.currentTimeMillis();
+        }
+        return System.currentTimeMillis() - activeCreated;
+    }
+
+    /**
+     * Merges runs of adjacent hot segments that together stay within a size, e.g.
+     * the small segments left by time-based rolls. Each run is copied into a temporary
+     * file without holding the log's monitor, so appends and reads go on meanwhile;
+     * the monitor is only taken to swap the merged file in and rewrite the manifest.
+     *
+     * @param maxBytes The largest merged segment to produce
+     * @return The number of segments removed by merging
+     */
+    public int compact(long maxBytes) {
+        synchronized (maintenanceLock) {
+            List<Segment> current;
+            long generation;
+            synchronized (this) {
+                refreshIfChanged();
+                current = new ArrayList<>(sealed);
+                generation = resets;
+            }
+            int removed = 0;
+            int i = 0;
+            while (i < current.size()) {
+                Segment first = current.get(i);
+                int end = i + 1;
+                long total = first.length;
+                while (first.tier == Tier.HOT && end < current.size() && current.get(end).tier == Tier.HOT
+                        && total + current.get(end).length <= maxBytes) {
+                    total += current.get(end).length;
+                    end++;
+                }
+                if (end - i > 1) {
+                    List<Segment> run = current.subList(i, end);
+                    File temp = new File(first.file.getPath() + ".tmp");
+                    if (merge(run, total, temp)
+                            && swap(run, new Segment(first.file, first.base, total, Tier.HOT), temp, generation)) {
+                        for (Segment segment : run.subList(1, run.size())) {
+                            segment.file.delete(); // Only once the manifest no longer lists them
+                        }
+                        removed += run.size() - 1;
+                    }
+                }
+                i = end;
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Compresses all but the newest sealed segments into the archive directory.
+     * Each segment is compressed into a temporary file without holding the log's
+     * monitor; the monitor is only taken to swap the compressed file in, and the
+     * plain file is deleted once the manifest points at the compressed one.
+     *
+     * @param hotSegments How many sealed segments stay plain in the segments directory
+     * @return The number of segments compressed
+     */
+    public int archive(int hotSegments) {
+        synchronized (maintenanceLock) {
+            List<Segment> current;
+            long generation;
+            synchronized (this) {
+                refreshIfChanged();
+                current = new ArrayList<>(sealed);
+                generation = resets;
+            }
+            int compressed = 0;
+            for (int i = 0; i < current.size(); i++) {
+                Segment segment = current.get(i);
+                if (segment.tier == Tier.COMPRESSED || i >= current.size() - hotSegments) {
+                    continue;
+                }
+                File target = segmentFile(archiveDir, segment.base, Tier.COMPRESSED);
+                File temp = new File(target.getPath() + ".tmp");
+                try {
+                    Files.createDirectories(archiveDir.toPath());
+                    CompressedSegment.write(segment.file, segment.length, temp);
+                } catch (IOException e) {
+                    System.err.println("Error archiving log segment: " + e.getMessage());
+                    temp.delete();
+                    continue; // Stays as it is; retried on the next pass
+                }
+                if (swap(List.of(segment), new Segment(target, segment.base, segment.length, Tier.COMPRESSED),
+                        temp, generation)) {
+                    segment.file.delete();
+                    compressed++;
+                }
+            }
+            return compressed;
+        }
+    }
+
+    /**
+     * Gets how much smaller the compressed segments are than their plain contents.
+     *
+     * @return Plain bytes per stored byte, or 0 if no segment is compressed
+     */
+    public synchronized double getCompressionRatio() {
+        refreshIfChanged();
+        long plain = 0;
+        long stored = 0;
+        for (Segment segment : sealed) {
+            if (segment.tier == Tier.COMPRESSED) {
+                plain += segment.length;
+                stored += segment.file.length();
+            }
+        }
+        return stored == 0 ? 0 : (double) plain / stored;
+    }
+
+    /**
+     * Gets the rate at which compressed blocks have been inflated since startup.
+     *
+     * @return Decoded megabytes per second of decode time, or 0 before the first decode
+     */
+    public double getDecodeThroughput() {
+        long nanos = CompressedSegment.getDecodeNanos();
+        return nanos == 0 ? 0 : CompressedSegment.getDecodedBytes() / 1e6 / (nanos / 1e9);
+    }
+
+    /**
+     * Deletes every sealed segment and the manifest, leaving the active file as the
+     * whole log from offset 0. Used before the log is rewritten in full.
+     */
+    public synchronized void reset() {
+        refreshIfChanged();
+        resets++; // Merges and compressions in progress no longer apply
+        for (Segment segment : sealed) {
+            segment.file.delete();
+        }
+        try {
+            Files.deleteIfExists(manifestFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Error deleting log manifest: " + e.getMessage());
+        }
+        sealed = new ArrayList<>();
+        activeBase = 0;
+        activeCreated = 0;
+        manifestStamp = Long.MIN_VALUE;
+    }
+
+    /**
+     * Opens a segment for reading. If it was moved by a concurrent merge or archive
+     * pass, the segment now holding its base offset is opened instead, with positions
+     * shifted when the records were merged into an earlier segment.
+     */
+    private Reader open(Segment segment) throws IOException {
+        try {
+            return openAs(segment);
+        } catch (NoSuchFileException e) {
+            if (segment.isActive()) {
+                throw e;
+            }
+            Segment moved;
+            synchronized (this) {
+                manifestStamp = Long.MIN_VALUE;
+                refreshIfChanged();
+                moved = containing(sealed, segment.base);
+            }
+            if (moved == null) {
+                throw e;
+            }
+            Reader reader = openAs(moved);
+            long shift = segment.base - moved.base;
+            return shift == 0 ? reader : new ShiftedReader(reader, shift);
+        }
+    }
+
+    private static Reader openAs(Segment segment) throws IOException {
+        if (segment.tier == Tier.COMPRESSED) {
+            return CompressedSegment.open(segment.file);
+        }
+        return new PlainReader(FileChannel.open(segment.file.toPath(), StandardOpenOption.READ));
+    }
+
+    /**
+     * Finds the segment starting at an offset.
+     */
+    private static Segment find(List<Segment> segments, long base) {
+        for (Segment segment : segments) {
+            if (segment.base == base) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the sealed segment holding an offset.
+     */
+    private static Segment containing(List<Segment> segments, long offset) {
+        for (Segment segment : segments) {
+            if (offset >= segment.base && offset < segment.getEnd()) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces segments with the one built from them in a temporary file, provided
+     * they are still listed unchanged and the log was not reset in the meantime.
+     * Only a rename and the manifest write happen under the monitor.
+     *
+     * @param replaced The adjacent segments the new file holds, in log order
+     * @param replacement The segment to list instead
+     * @param temp The finished temporary file, moved to the replacement's file
+     * @param generation The reset count seen when the work started
+     * @return true if the manifest now lists the replacement; the temporary file is deleted otherwise
+     */
+    private synchronized boolean swap(List<Segment> replaced, Segment replacement, File temp, long generation) {
+        refreshIfChanged();
+        int at = -1;
+        for (int i = 0; generation == resets && i < sealed.size(); i++) {
+            if (same(sealed.get(i), replaced.get(0))) {
+                at = i;
+                break;
+            }
+        }
+        boolean listed = at >= 0 && at + replaced.size() <= sealed.size();
+        for (int i = 1; listed && i < replaced.size(); i++) {
+            listed = same(sealed.get(at + i), replaced.get(i));
+        }
+        if (!listed) {
+            temp.delete(); // Rolled back by a reset or changed by another process
+            return false;
+        }
+        try {
+            Files.move(temp.toPath(), replacement.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error replacing log segment: " + e.getMessage());
+            temp.delete();
+            return false;
+        }
+        replacement.file.setReadOnly();
+        List<Segment> updated = new ArrayList<>(sealed.subList(0, at));
+        updated.add(replacement);
+        updated.addAll(sealed.subList(at + replaced.size(), sealed.size()));
+        return writeManifest(updated, activeBase);
+    }
+
+    private static boolean same(Segment a, Segment b) {
+        return a.base == b.base && a.length == b.length && a.tier == b.tier;
+    }
+
+    /**
+     * Concatenates segments into a temporary file, each up to its manifest length.
+     *
+     * @return true if the file holds exactly the run's bytes; it is deleted otherwise
+     */
+    private static boolean merge(List<Segment> run, long total, File temp) {
+        try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Segment segment : run) {
+                try (FileChannel in = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ)) {
+                    long copied = 0;
+                    while (copied < segment.length) { // Only the length the manifest gives it
+                        long step = in.transferTo(copied, segment.length - copied, out);
+                        if (step <= 0) {
+                            break;
+                        }
+                        copied += step;
+                    }
+                }
+            }
+            out.force(true);
+        } catch (IOException e) {
+            System.err.println("Error merging log segments: " + e.getMessage());
+            temp.delete();
+            return false;
+        }
+        if (temp.length() != total) {
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Re-reads the manifest if another process changed it. A sealed segment whose
+     * roll was cut short before the manifest was written is adopted here.
+     */
+    private void refreshIfChanged() {
+        long stamp = manifestFile.exists() ? manifestFile.lastModified() ^ manifestFile.length() : -1;
+        if (stamp == manifestStamp) {
+            return;
+        }
+        manifestStamp = stamp;
+        List<Segment> loaded = new ArrayList<>();
+        long base = 0;
+        if (stamp != -1) {
+            try {
+                for (String line : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\\|");
+                    if (parts[0].equals("active") && parts.length == 2) {
+                        base = Long.parseLong(parts[1]);
+                    } else if (parts[0].equals("segment") && parts.length == 4) {
+                        long segmentBase = Long.parseLong(parts[1]);
+                        Tier tier = Tier.valueOf(parts[3]);
+                        loaded.add(new Segment(segmentFile(tier == Tier.HOT ? segmentDir : archiveDir, segmentBase, tier),
+                                segmentBase, Long.parseLong(parts[2]), tier));
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Error reading log manifest: " + e.getMessage());
+                return;
+            }
+        }
+        File orphan = segmentFile(segmentDir, base, Tier.HOT);
+        if (orphan.exists() && find(loaded, base) == null) {
+            loaded.add(new Segment(orphan, base, orphan.length(), Tier.HOT));
+            base += orphan.length();
+            sealed = loaded;
+            activeBase = base;
+            writeManifest(loaded, base);
+            return;
+        }
+        sealed = loaded;
+        activeBase = base;
+    }
+
+    /**
+     * Replaces the manifest through a temporary file and an atomic rename, and adopts
+     * the new layout in memory either way.
+     *
+     * @return true if the manifest was written
+     */
+    private boolean writeManifest(List<Segment> segments, long newActiveBase) {
+        List<String> lines = new ArrayList<>();
+        for (Segment segment : segments) {
+            lines.add("segment|" + segment.base + "|" + segment.length + "|" + segment.tier.name());
+        }
+        lines.add("active|" + newActiveBase);
+        sealed = segments;
+        activeBase = newActiveBase;
+        File temp = new File(manifestFile.getPath() + ".tmp");
+        try {
+            Files.write(temp.toPath(), lines, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), manifestFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing log manifest: " + e.getMessage());
+            return false;
+        }
+        manifestStamp = manifestFile.lastModified() ^ manifestFile.length();
+        return true;
+    }
+
+    /**
+     * Gets the file name of a sealed segment, which is its zero-padded base offset
+     * with an extension telling plain from compressed files.
+     */
+    private static File segmentFile(File directory, long base, Tier tier) {
+        return new File(directory, String.format("transactions-%020d.%s", base, tier == Tier.COMPRESSED ? "dz" : "log"));
+    }
+
+    /**
+     * Reader over a segment whose records were merged into an earlier one, so its
+     * positions are offset by the bytes of the segments merged in before it.
+     */
+    private static final class ShiftedReader implements Reader {
+        private final Reader reader;
+        private final long shift;
+
+        private ShiftedReader(Reader reader, long shift) {
+            this.reader = reader;
+            this.shift = shift;
+        }
+
+        @Override
+        public byte[] readRecord(long position) throws IOException {
+            return reader.readRecord(position + shift);
+        }
+
+        @Override
+        public InputStream stream(long position, long length) throws IOException {
+            return reader.stream(position + shift, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reader over a plain segment file using positioned reads.
+     */
+    private static final class PlainReader implements Reader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(512);
+
+        private PlainReader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public byte[] readRecord(long position) throws IOException {
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    return null; // Reached end of file before the newline
+                }
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        record.write(bytes, 0, i);
+                        return record.toByteArray();
+                    }
+                }
+                record.write(bytes, 0, read);
+                position += read;
+            }
+        }
+
+        @Override
+        public InputStream stream(long position, long length) throws IOException {
+            channel.position(position);
+            InputStream in = Channels.newInputStream(channel);
+            return length == Long.MAX_VALUE ? in : new BoundedInputStream(in, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Stream that stops after a fixed number of bytes, so a sealed segment is read
+     * only up to the length the manifest gives it.
+     */
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long remaining) {
+            this.in = in;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(bytes, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
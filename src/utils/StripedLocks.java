@@ -0,0 +1,89 @@
+package utils;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed table of locks shared by keys that hash to the same stripe.
+ * Operations on different accounts usually take different stripes and run in
+ * parallel, while the table stays a constant size however many accounts exist.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * Creates a lock table.
+     *
+     * @param minimumStripes The minimum number of stripes, rounded up to a power of two
+     */
+    public StripedLocks(int minimumStripes) {
+        int size = Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Gets the stripe index for a key.
+     *
+     * @param key The key, e.g. an account number
+     * @return The stripe index
+     */
+    public int stripeFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16); // Spread high bits so similar numbers land on different stripes
+        return hash & mask;
+    }
+
+    /**
+     * Locks the stripe guarding a key.
+     *
+     * @param key The key to lock
+     */
+    public void lock(String key) {
+        stripes[stripeFor(key)].lock();
+    }
+
+    /**
+     * Unlocks the stripe guarding a key.
+     *
+     * @param key The key to unlock
+     */
+    public void unlock(String key) {
+        stripes[stripeFor(key)].unlock();
+    }
+
+    /**
+     * Locks the stripes guarding two keys, always in ascending stripe order so two
+     * threads locking the same pair in opposite directions cannot deadlock.
+     * A shared stripe is locked once.
+     *
+     * @param first The first key
+     * @param second The second key
+     */
+    public void lockBoth(String first, String second) {
+        int a = stripeFor(first);
+        int b = stripeFor(second);
+        stripes[Math.min(a, b)].lock();
+        if (a != b) {
+            stripes[Math.max(a, b)].lock();
+        }
+    }
+
+    /**
+     * Unlocks the stripes taken by {@link #lockBoth(String, String)}.
+     *
+     * @param first The first key
+     * @param second The second key
+     */
+    public void unlockBoth(String first, String second) {
+        int a = stripeFor(first);
+        int b = stripeFor(second);
+        if (a != b) {
+            stripes[Math.max(a, b)].unlock();
+        }
+        stripes[Math.min(a, b)].unlock();
+    }
+}
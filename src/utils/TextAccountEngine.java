@@ -0,0 +1,208 @@
+package utils;
+
+import models.Account;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Account storage on the pipe-delimited accounts.txt file.
+ * Balance changes, new accounts and PIN changes are appended to a {@link BalanceJournal}
+ * and folded back into accounts.txt by a background checkpoint. External edits to the
+ * file are detected by its modification time and size.
+ */
+public final class TextAccountEngine implements AccountStorageEngine {
+    private static final long CHECKPOINT_INTERVAL_SECONDS = 5;
+    private static final int CHECKPOINT_RECORD_THRESHOLD = 1000;
+
+    private final Object storeLock;
+    private final Supplier<Collection<Account>> accounts;
+    private final BalanceJournal journal;
+    private final Object checkpointLock = new Object();
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean();
+    private final ScheduledExecutorService checkpointExecutor;
+    private volatile long loadedModified = -1;
+    private volatile long loadedSize = -1;
+    private volatile boolean writingCheckpoint;
+
+    /**
+     * Creates the engine and starts its checkpoint thread.
+     *
+     * @param storeLock The lock guarding the account index; it does not order balance
+     *                  changes, which are journaled without it
+     * @param accounts Supplies the current accounts while storeLock is held
+     */
+    public TextAccountEngine(Object storeLock, Supplier<Collection<Account>> accounts) {
+        this.storeLock = storeLock;
+        this.accounts = accounts;
+        journal = new BalanceJournal(FileHandler.getAccountsJournalFile());
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointExecutor.scheduleWithFixedDelay(this::checkpointIfDirty,
+                CHECKPOINT_INTERVAL_SECONDS, CHECKPOINT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reads accounts.txt and replays journaled changes newer than its checkpoint.
+     *
+     * @return All stored accounts
+     */
+    @Override
+    public List<Account> loadAccounts() {
+        long[] stamp = fileStamp();
+        loadedModified = stamp[0];
+        loadedSize = stamp[1];
+
+        List<Account> stored = FileHandler.readAccounts();
+        Map<String, Long> balances = new HashMap<>();
+        Map<String, Account> saved = new LinkedHashMap<>();
+        journal.replay(FileHandler.readAccountsCheckpointSequence(), balances, saved);
+
+        List<Account> loaded = new ArrayList<>(stored.size() + saved.size());
+        for (Account account : stored) {
+            Account newer = saved.remove(account.getAccountNumber());
+            loaded.add(newer != null ? newer : account);
+        }
+        loaded.addAll(saved.values()); // Created since the checkpoint
+        for (Account account : loaded) {
+            Long balance = balances.get(account.getAccountNumber());
+            if (balance != null) {
+                account.setBalance(balance);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Compares the file stamp with the one seen at load. A checkpoint of our own
+     * that is still between its file write and its stamp update is not a change.
+     */
+    @Override
+    public boolean hasExternalChanges() {
+        if (writingCheckpoint) {
+            return false;
+        }
+        long[] stamp = fileStamp();
+        return stamp[0] != loadedModified || stamp[1] != loadedSize;
+    }
+
+    /**
+     * Reads the modification time and size of accounts.txt with a single stat call.
+     *
+     * @return The modification time in nanoseconds and the size, or zeros if the file is missing
+     */
+    private static long[] fileStamp() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(FileHandler.getAccountsFile().toPath(),
+                    BasicFileAttributes.class);
+            return new long[] {attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size()};
+        } catch (IOException e) {
+            return new long[] {0, 0};
+        }
+    }
+
+    /**
+     * Appends the change to the balance journal; accounts.txt is rewritten later
+     * by a checkpoint.
+     */
+    @Override
+    public CompletableFuture<Long> balanceChanged(Account account, long delta) {
+        CompletableFuture<Long> write = journal.append(account, delta);
+        if (journal.getRecordsSinceCheckpoint() >= CHECKPOINT_RECORD_THRESHOLD) {
+            requestCheckpoint();
+        }
+        return write;
+    }
+
+    /**
+     * Appends the whole account to the journal and waits for it to be committed;
+     * accounts.txt is rewritten later by a checkpoint, as for balance changes.
+     */
+    @Override
+    public boolean accountSaved(Account account) {
+        CompletableFuture<Long> write = journal.appendAccount(account);
+        if (journal.getRecordsSinceCheckpoint() >= CHECKPOINT_RECORD_THRESHOLD) {
+            requestCheckpoint();
+        }
+        try {
+            write.join();
+            return true;
+        } catch (CompletionException e) {
+            System.err.println("Error journaling account: " + e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Schedules a background checkpoint unless one is already queued.
+     */
+    private void requestCheckpoint() {
+        if (checkpointQueued.compareAndSet(false, true)) {
+            checkpointExecutor.execute(this::checkpointIfDirty);
+        }
+    }
+
+    /**
+     * Runs a checkpoint if any balance changes were journaled since the last one.
+     */
+    private void checkpointIfDirty() {
+        checkpointQueued.set(false);
+        if (journal.getRecordsSinceCheckpoint() > 0) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Writes all accounts to accounts.txt tagged with the journal sequence they cover,
+     * then drops the journal records the checkpoint made redundant. The snapshot is
+     * taken under the store lock and, since balance changes are journaled without
+     * that lock, together with the seal under the journal lock; the file write
+     * happens outside both.
+     *
+     * @return true if the checkpoint was written, false otherwise
+     */
+    boolean checkpoint() {
+        synchronized (checkpointLock) {
+            List<String> lines = new ArrayList<>();
+            long sequence;
+            synchronized (storeLock) {
+                sequence = journal.seal(() -> {
+                    for (Account account : accounts.get()) {
+                        lines.add(account.toFileString());
+                    }
+                });
+            }
+
+            writingCheckpoint = true;
+            boolean written = FileHandler.writeAccountsCheckpoint(lines, sequence);
+            synchronized (storeLock) {
+                long[] stamp = fileStamp();
+                loadedModified = stamp[0];
+                loadedSize = stamp[1];
+                writingCheckpoint = false;
+            }
+            if (!written) {
+                return false; // Sealed journal is kept and replayed on next load
+            }
+            journal.discardSealed();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashed timing wheel for inactivity deadlines, driven by a single daemon thread.
+ * Timeouts are hashed into a ring of buckets by deadline; each tick the thread
+ * expires the current bucket. Postponing a deadline only rewrites a field, and the
+ * wheel moves the timeout to its new bucket when the old one comes up, so an
+ * activity touch is O(1) and allocation-free. Tasks run on the wheel thread and
+ * must be short; hand longer work to another thread.
+ */
+public class TimingWheel {
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static TimingWheel instance;
+
+    private final long tickMillis;
+    private final Timeout[] buckets;
+    private final int mask;
+    private final long startMillis;
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger liveTimers = new AtomicInteger();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder cancelledCount = new LongAdder();
+    private final LongAdder rescheduledCount = new LongAdder();
+    private long tick; // Only touched by the wheel thread
+
+    /**
+     * Creates a wheel and starts its thread.
+     *
+     * @param tickMillis    The resolution of the wheel in milliseconds
+     * @param minimumSlots  The minimum number of buckets, rounded up to a power of two
+     * @param threadName    The name of the wheel thread
+     */
+    public TimingWheel(long tickMillis, int minimumSlots, String threadName) {
+        int size = Integer.highestOneBit(Math.max(1, minimumSlots - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.startMillis = System.currentTimeMillis();
+        Thread thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the process-wide wheel used for session and screen inactivity.
+     * One-second resolution; a revolution covers a little over eight minutes.
+     *
+     * @return The shared TimingWheel instance
+     */
+    public static synchronized TimingWheel getInstance() {
+        if (instance == null) {
+            instance = new TimingWheel(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, "inactivity-wheel");
+        }
+        return instance;
+    }
+
+    /**
+     * Schedules a task to run once after a delay, unless touched or cancelled first.
+     *
+     * @param task        The task, run on the wheel thread
+     * @param delayMillis The delay in milliseconds
+     * @return Handle used to postpone or cancel the timeout
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + delayMillis);
+        liveTimers.incrementAndGet();
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Gets the number of timeouts that are scheduled and have neither fired nor been cancelled.
+     *
+     * @return The live timer count
+     */
+    public int getLiveTimers() {
+        return liveTimers.get();
+    }
+
+    /**
+     * Gets the number of timeouts that have fired.
+     *
+     * @return The expired count
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * Gets the number of timeouts cancelled before firing.
+     *
+     * @return The cancelled count
+     */
+    public long getCancelledCount() {
+        return cancelledCount.sum();
+    }
+
+    /**
+     * Gets the number of times a touched timeout was moved to a later bucket.
+     *
+     * @return The rescheduled count
+     */
+    public long getRescheduledCount() {
+        return rescheduledCount.sum();
+    }
+
+    private void run() {
+        while (true) {
+            long tickEnd = startMillis + (tick + 1) * tickMillis;
+            long sleep = tickEnd - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            Timeout queued;
+            while ((queued = incoming.poll()) != null) {
+                place(queued);
+            }
+            expireBucket(System.currentTimeMillis());
+            tick++;
+        }
+    }
+
+    /**
+     * Links a timeout into the bucket for its deadline. Wheel thread only.
+     */
+    private void place(Timeout timeout) {
+        long ticksAt = Math.max(tick, (timeout.deadline - startMillis) / tickMillis);
+        int index = (int) (ticksAt & mask);
+        timeout.rounds = (ticksAt - tick) / buckets.length;
+        timeout.next = buckets[index];
+        buckets[index] = timeout;
+    }
+
+    /**
+     * Fires or moves every due timeout in the current bucket. Wheel thread only.
+     */
+    private void expireBucket(long now) {
+        int index = (int) (tick & mask);
+        Timeout timeout = buckets[index];
+        buckets[index] = null; // Detach first so moved timeouts are not visited twice
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            if (timeout.state != Timeout.ACTIVE) {
+                // Cancelled; drop it
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+                timeout.next = buckets[index];
+                buckets[index] = timeout;
+            } else if (timeout.deadline > now) {
+                rescheduledCount.increment();
+                place(timeout);
+            } else if (Timeout.STATE.compareAndSet(timeout, Timeout.ACTIVE, Timeout.EXPIRED)) {
+                liveTimers.decrementAndGet();
+                expiredCount.increment();
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error running timeout task: " + e.getMessage());
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * A scheduled task. Touch and cancel may be called from any thread.
+     */
+    public final class Timeout {
+        private static final int ACTIVE = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final Runnable task;
+        private volatile long deadline;
+        private volatile int state;
+        private long rounds;   // Wheel thread only
+        private Timeout next;  // Wheel thread only
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Postpones the deadline to the given delay from now. Touching never brings a
+         * deadline forward; the timeout still fires no earlier than its current bucket.
+         *
+         * @param delayMillis The new delay in milliseconds
+         * @return true if the timeout was still pending, false if it already fired or was cancelled
+         */
+        public boolean touch(long delayMillis) {
+            if (state != ACTIVE) {
+                return false;
+            }
+            deadline = System.currentTimeMillis() + delayMillis;
+            return state == ACTIVE;
+        }
+
+        /**
+         * Cancels the timeout. Its bucket entry is dropped when the wheel next reaches it.
+         *
+         * @return true if this call cancelled it, false if it already fired or was cancelled
+         */
+        public boolean cancel() {
+            if (STATE.compareAndSet(this, ACTIVE, CANCELLED)) {
+                liveTimers.decrementAndGet();
+                cancelledCount.increment();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks whether the timeout is still pending.
+         *
+         * @return true if it has neither fired nor been cancelled
+         */
+        public boolean isPending() {
+            return state == ACTIVE;
+        }
+    }
+}
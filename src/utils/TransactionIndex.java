@@ -0,0 +1,314 @@
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persistent secondary index over the transactions log.
+ * Maps each account number to the byte offsets of its records so history
+ * queries can seek straight to them instead of scanning the whole log.
+ * The index is saved as a {@link LedgerCheckpoint} every few thousand records and
+ * at a fixed interval; on startup the checkpoint is loaded and only the log written
+ * after it is scanned. Without a usable checkpoint the index is rebuilt from the log.
+ */
+public class TransactionIndex {
+    private static final long CHECKPOINT_INTERVAL_SECONDS = 30;
+    private static final int CHECKPOINT_RECORD_THRESHOLD = 10_000;
+
+    private final SegmentedLog log;
+    private final File checkpointFile;
+    private final Map<String, OffsetList> offsets = new HashMap<>();
+    private long coveredLength = -1;
+    private int recordsSinceCheckpoint;
+    private final Object checkpointLock = new Object();
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean();
+    private final ScheduledExecutorService checkpointExecutor;
+
+    private TransactionIndex(SegmentedLog log, File checkpointFile) {
+        this.log = log;
+        this.checkpointFile = checkpointFile;
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates an index for the given log and starts its checkpoint thread once
+     * the index is fully constructed.
+     *
+     * @param log The transactions log
+     * @param checkpointFile The file the index is checkpointed to
+     * @return The new index
+     */
+    public static TransactionIndex open(SegmentedLog log, File checkpointFile) {
+        TransactionIndex index = new TransactionIndex(log, checkpointFile);
+        index.checkpointExecutor.scheduleWithFixedDelay(index::checkpointIfDirty,
+                CHECKPOINT_INTERVAL_SECONDS, CHECKPOINT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return index;
+    }
+
+    /**
+     * Records a newly appended transaction.
+     *
+     * @param accountNumber The account the record belongs to
+     * @param offset The byte offset of the record in the log
+     * @param length The length of the record in bytes, including its newline
+     */
+    public synchronized void add(String accountNumber, long offset, long length) {
+        if (coveredLength < 0 && !loadCheckpoint()) {
+            rebuild(); // The rebuild scan already includes this record
+            return;
+        }
+        if (offset != coveredLength) {
+            ensureCurrent(); // Someone else wrote to the log; catch up, including this record
+            return;
+        }
+        put(accountNumber, offset);
+        coveredLength = offset + length;
+        if (++recordsSinceCheckpoint >= CHECKPOINT_RECORD_THRESHOLD) {
+            requestCheckpoint();
+        }
+    }
+
+    /**
+     * Gets the offsets of all records for an account, oldest first.
+     *
+     * @param accountNumber The account number
+     * @return Array of byte offsets into the log
+     */
+    public synchronized long[] offsetsFor(String accountNumber) {
+        ensureCurrent();
+        OffsetList list = offsets.get(accountNumber);
+        return list == null ? new long[0] : list.toArray();
+    }
+
+    /**
+     * Gets the offsets of an account's most recent records without copying the rest.
+     *
+     * @param accountNumber The account number
+     * @param limit The maximum number of offsets
+     * @return Array of byte offsets into the log, oldest first
+     */
+    public synchronized long[] latestOffsetsFor(String accountNumber, int limit) {
+        return offsetsBefore(accountNumber, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Gets the offsets of an account's records that precede a position in the log,
+     * closest first. Finding the position is a binary search, so the cost depends on
+     * the number of offsets returned rather than on the length of the history.
+     *
+     * @param accountNumber The account number
+     * @param before Only offsets below this are returned
+     * @param limit The maximum number of offsets
+     * @return Array of byte offsets into the log, oldest first
+     */
+    public synchronized long[] offsetsBefore(String accountNumber, long before, int limit) {
+        ensureCurrent();
+        OffsetList list = offsets.get(accountNumber);
+        return list == null ? new long[0] : list.before(before, limit);
+    }
+
+    /**
+     * Discards the index and rebuilds it from the log.
+     */
+    public synchronized void rebuild() {
+        offsets.clear();
+        coveredLength = 0;
+        try {
+            Files.deleteIfExists(checkpointFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Error deleting ledger checkpoint: " + e.getMessage());
+        }
+        scanLog();
+        requestCheckpoint(); // Spare the next start the full scan
+    }
+
+    /**
+     * Writes a checkpoint of the index now. The snapshot is taken under the index
+     * lock; the file write happens outside it.
+     *
+     * @return true if the checkpoint was written, false otherwise
+     */
+    public boolean checkpoint() {
+        synchronized (checkpointLock) {
+            LedgerCheckpoint snapshot;
+            synchronized (this) {
+                ensureCurrent();
+                Map<String, long[]> copy = new HashMap<>(offsets.size() * 2);
+                for (Map.Entry<String, OffsetList> entry : offsets.entrySet()) {
+                    copy.put(entry.getKey(), entry.getValue().toArray());
+                }
+                snapshot = new LedgerCheckpoint(coveredLength,
+                        LedgerCheckpoint.tailChecksum(log, coveredLength),
+                        MonotonicIdGenerator.getInstance().getState(), copy);
+                recordsSinceCheckpoint = 0;
+            }
+            return snapshot.write(checkpointFile);
+        }
+    }
+
+    /**
+     * Schedules a background checkpoint unless one is already queued.
+     */
+    private void requestCheckpoint() {
+        if (checkpointQueued.compareAndSet(false, true)) {
+            checkpointExecutor.execute(this::checkpointIfDirty);
+        }
+    }
+
+    /**
+     * Runs a checkpoint if records were indexed since the last one.
+     */
+    private void checkpointIfDirty() {
+        checkpointQueued.set(false);
+        boolean dirty;
+        synchronized (this) {
+            dirty = recordsSinceCheckpoint > 0 || !checkpointFile.exists();
+        }
+        if (dirty) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Loads the index on first use and brings it in line with the log. Records
+     * appended by other writers are indexed incrementally; a log that shrank or
+     * no longer matches the index triggers a full rebuild.
+     */
+    private void ensureCurrent() {
+        if (coveredLength < 0) {
+            if (!loadCheckpoint()) {
+                rebuild();
+                return;
+            }
+        }
+        long logLength = log.length();
+        if (logLength < coveredLength) {
+            rebuild();
+        } else if (logLength > coveredLength) {
+            scanLog();
+        }
+    }
+
+    /**
+     * Loads the latest checkpoint if it still matches the log. Records written after
+     * it are picked up by the next {@link #scanLog()}.
+     *
+     * @return true if the checkpoint was loaded, false otherwise
+     */
+    private boolean loadCheckpoint() {
+        offsets.clear();
+        LedgerCheckpoint checkpoint = LedgerCheckpoint.read(checkpointFile);
+        if (checkpoint == null || !checkpoint.matches(log)) {
+            return false;
+        }
+        for (Map.Entry<String, long[]> entry : checkpoint.getOffsets().entrySet()) {
+            offsets.put(entry.getKey(), new OffsetList(entry.getValue()));
+        }
+        coveredLength = checkpoint.getCoveredLength();
+        MonotonicIdGenerator.getInstance().restoreState(checkpoint.getIdState());
+        return true;
+    }
+
+    /**
+     * Indexes every complete record in the log beyond the covered length.
+     */
+    private void scanLog() {
+        try (InputStream in = new BufferedInputStream(log.openFrom(coveredLength), 1 << 16)) {
+            byte[] line = new byte[256];
+            int length = 0;
+            long position = coveredLength;
+            long lineStart = position;
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = (byte) b;
+                    continue;
+                }
+                String accountNumber = accountOf(line, length);
+                if (accountNumber != null && line[0] != '#') {
+                    put(accountNumber, lineStart);
+                    recordsSinceCheckpoint++;
+                }
+                length = 0;
+                lineStart = position;
+            }
+            coveredLength = lineStart; // A trailing partial line is picked up once completed
+        } catch (IOException e) {
+            System.err.println("Error scanning transactions for index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Extracts the account number (second field) from a raw record.
+     */
+    private static String accountOf(byte[] record, int length) {
+        int first = -1;
+        for (int i = 0; i < length; i++) {
+            if (record[i] == '|') {
+                if (first < 0) {
+                    first = i;
+                } else {
+                    return i > first + 1 ? new String(record, first + 1, i - first - 1, StandardCharsets.UTF_8) : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void put(String accountNumber, long offset) {
+        offsets.computeIfAbsent(accountNumber, key -> new OffsetList()).add(offset);
+    }
+
+    /**
+     * Growable array of primitive offsets, avoiding a boxed Long per record.
+     */
+    private static class OffsetList {
+        private long[] values;
+        private int size;
+
+        OffsetList() {
+            values = new long[8];
+        }
+
+        OffsetList(long[] loaded) {
+            values = loaded.length == 0 ? new long[8] : loaded;
+            size = loaded.length;
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        long[] before(long bound, int count) {
+            int end = Arrays.binarySearch(values, 0, size, bound); // Offsets are appended in increasing order
+            end = end < 0 ? -end - 1 : end;
+            return Arrays.copyOfRange(values, Math.max(0, end - count), end);
+        }
+    }
+}
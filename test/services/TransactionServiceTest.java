@@ -0,0 +1,60 @@
+package services;
+
+import models.Transaction.TransactionType;
+import models.TransactionPage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the paging of an account's transaction history.
+ */
+class TransactionServiceTest {
+    static {
+        // FileHandler resolves its paths once, so the storage directory is set before it loads
+        try {
+            System.setProperty("atm.storage.dir", Files.createTempDirectory("atm-storage").toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final TransactionService service = new TransactionService();
+
+    @Test
+    void zeroPageSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.getTransactionPage("300001", null, 0));
+    }
+
+    @Test
+    void negativePageSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.getTransactionPage("300001", null, -5));
+    }
+
+    /**
+     * Pages through three transactions two at a time, newest first.
+     */
+    @Test
+    void pagesFollowTheCursor() {
+        for (int i = 1; i <= 3; i++) {
+            service.createTransaction("300002", TransactionType.DEPOSIT, i * 100L, null);
+        }
+
+        TransactionPage first = service.getTransactionPage("300002", null, 2);
+        assertEquals(2, first.getTransactions().size());
+        assertEquals(300, first.getTransactions().get(0).getAmount());
+        assertNotNull(first.getNextCursor());
+
+        TransactionPage second = service.getTransactionPage("300002", first.getNextCursor(), 2);
+        assertEquals(1, second.getTransactions().size());
+        assertEquals(100, second.getTransactions().get(0).getAmount());
+        assertFalse(second.hasMore());
+    }
+}
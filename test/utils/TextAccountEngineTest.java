@@ -0,0 +1,189 @@
+package utils;
+
+import models.Account;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that changes journaled by the text engine, including ones racing a checkpoint, survive a reload.
+ */
+class TextAccountEngineTest {
+    static {
+        // FileHandler resolves its paths once, so the storage directory is set before it loads
+        try {
+            System.setProperty("atm.storage.dir", Files.createTempDirectory("atm-storage").toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deposits into an account after the checkpoint snapshotted it but before the
+     * journal is sealed, then reloads and expects the deposit to be there.
+     */
+    @Test
+    void depositDuringCheckpointSnapshotSurvivesReload() throws Exception {
+        clearStorage();
+        Account first = new Account("100001", "First", "hash", 0, LocalDateTime.now());
+        Account second = new Account("100002", "Second", "hash", 0, LocalDateTime.now());
+        ExecutorService depositor = Executors.newSingleThreadExecutor();
+        TextAccountEngine[] engine = new TextAccountEngine[1];
+        AtomicBoolean racing = new AtomicBoolean();
+
+        // Yields the first account, then deposits into it before yielding the second
+        Collection<Account> accounts = new AbstractCollection<>() {
+            @Override
+            public Iterator<Account> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < 2;
+                    }
+
+                    @Override
+                    public Account next() {
+                        if (next == 1 && racing.get()) {
+                            Future<?> deposit = depositor.submit(() -> {
+                                first.compareAndSetBalance(first.getBalance(), first.getBalance() + 500);
+                                engine[0].balanceChanged(first, 500).join();
+                            });
+                            try {
+                                deposit.get(200, TimeUnit.MILLISECONDS); // Blocks while the journal is held
+                            } catch (TimeoutException e) {
+                                // Expected when the snapshot holds the journal lock
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                        return next++ == 0 ? first : second;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return 2;
+            }
+        };
+
+        engine[0] = new TextAccountEngine(new Object(), () -> accounts);
+        engine[0].checkpoint();
+        racing.set(true);
+        engine[0].checkpoint();
+        racing.set(false);
+        depositor.shutdown();
+        depositor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertEquals(500, reloadedTotal());
+        engine[0].checkpoint(); // Leaves no pending records for its background checkpoint
+    }
+
+    /**
+     * Runs deposits on several threads while checkpoints are taken in a loop,
+     * then reloads and compares the total with the number of deposits.
+     */
+    @Test
+    void concurrentDepositsAndCheckpointsKeepTotal() throws Exception {
+        clearStorage();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            accounts.add(new Account(String.valueOf(200000 + i), "Holder " + i, "hash", 0, LocalDateTime.now()));
+        }
+        Object storeLock = new Object();
+        TextAccountEngine engine = new TextAccountEngine(storeLock, () -> accounts);
+        engine.checkpoint();
+
+        int threads = 4;
+        int depositsPerThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        Future<?> checkpoints = executor.submit(() -> {
+            while (!done.get()) {
+                engine.checkpoint();
+            }
+        });
+        List<Future<?>> depositors = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            depositors.add(executor.submit(() -> {
+                for (int i = 0; i < depositsPerThread; i++) {
+                    Account account = accounts.get((i + offset) % accounts.size());
+                    long balance;
+                    do {
+                        balance = account.getBalance();
+                    } while (!account.compareAndSetBalance(balance, balance + 1));
+                    engine.balanceChanged(account, 1).join();
+                }
+            }));
+        }
+        for (Future<?> depositorResult : depositors) {
+            depositorResult.get();
+        }
+        done.set(true);
+        checkpoints.get();
+        executor.shutdown();
+
+        assertEquals((long) threads * depositsPerThread, reloadedTotal());
+        engine.checkpoint();
+    }
+
+    /**
+     * Saves a new account and then a PIN change without a checkpoint in between,
+     * and expects a reload to replay both from the journal.
+     */
+    @Test
+    void savedAccountsAreJournaledWithoutCheckpoint() throws Exception {
+        clearStorage();
+        Account account = new Account("300001", "Holder", "hash", 0, LocalDateTime.now());
+        TextAccountEngine engine = new TextAccountEngine(new Object(), () -> List.of(account));
+
+        assertTrue(engine.accountSaved(account));
+        account.setHashedPin("changed");
+        assertTrue(engine.accountSaved(account));
+        account.setBalance(700);
+        engine.balanceChanged(account, 700).join();
+        assertFalse(FileHandler.getAccountsFile().exists()); // Nothing was checkpointed
+
+        List<Account> reloaded = new TextAccountEngine(new Object(), List::of).loadAccounts();
+        assertEquals(1, reloaded.size());
+        assertEquals("changed", reloaded.get(0).getHashedPin());
+        assertEquals(700, reloaded.get(0).getBalance());
+        engine.checkpoint();
+    }
+
+    private static long reloadedTotal() {
+        long total = 0;
+        for (Account account : new TextAccountEngine(new Object(), List::of).loadAccounts()) {
+            total += account.getBalance();
+        }
+        return total;
+    }
+
+    private static void clearStorage() throws IOException {
+        Files.deleteIfExists(FileHandler.getAccountsFile().toPath());
+        Files.deleteIfExists(FileHandler.getAccountsJournalFile().toPath());
+        Files.deleteIfExists(new File(FileHandler.getAccountsJournalFile().getPath() + ".old").toPath());
+    }
+}